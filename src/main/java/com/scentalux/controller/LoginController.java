@@ -1,22 +1,24 @@
 package com.scentalux.controller;
 
-import com.scentalux.model.User;
-import com.scentalux.repo.IUserRepo;
+import com.scentalux.exception.InvalidRefreshTokenException;
+import com.scentalux.exception.PasswordHashingBusyException;
 import com.scentalux.security.JwtRequest;
 import com.scentalux.security.JwtResponse;
 import com.scentalux.security.JwtTokenUtil;
-import com.scentalux.security.JwtUserDetailsService;
+import com.scentalux.security.RefreshRequest;
+import com.scentalux.security.RefreshTokenService;
+import com.scentalux.security.UserDetailsCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @RestController
 @RequiredArgsConstructor
@@ -24,23 +26,43 @@ public class LoginController {
 
     private final AuthenticationManager authenticationManager;
     private final JwtTokenUtil jwtTokenUtil;
-    private final JwtUserDetailsService jwtUserDetailsService;
-    private final IUserRepo userRepo;
+    private final UserDetailsCache userDetailsCache;
+    private final RefreshTokenService refreshTokenService;
 
     @PostMapping("/login")
     public ResponseEntity<JwtResponse> login(@RequestBody JwtRequest req) throws Exception {
         authenticate(req.getUsername(), req.getPassword());
 
-        final UserDetails userDetails = jwtUserDetailsService.loadUserByUsername(req.getUsername());
-        final String token = jwtTokenUtil.generateToken(userDetails);
+        // La autenticación ya cargó el usuario: aquí se lee de la caché
+        final UserDetailsCache.CachedUser user = userDetailsCache.get(req.getUsername());
 
-        // Aquí usamos directamente findOneByUsername
-        User user = userRepo.findOneByUsername(req.getUsername());
+        return ResponseEntity.ok(tokens(user, refreshTokenService.issue(user)));
+    }
+
+    // Nuevo access token sin verificar la contraseña: solo una búsqueda por índice del refresh token
+    @PostMapping("/token/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshRequest req) {
+        try {
+            RefreshTokenService.Rotation rotation = refreshTokenService.rotate(req.getRefreshToken());
+            return ResponseEntity.ok(tokens(rotation.user(), rotation.refreshToken()));
+        } catch (InvalidRefreshTokenException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
 
-        // Convertimos lista de roles a nombres
-        List<String> roles=user.getRoles().stream().map(role ->role.getName()).collect(Collectors.toList());
+    private JwtResponse tokens(UserDetailsCache.CachedUser user, String refreshToken) {
+        // El token lleva id y versión del usuario para poder revocarlo
+        final String token = jwtTokenUtil.generateToken(user.toUserDetails(), user.id(), user.tokenVersion());
+        return new JwtResponse(token, user.username(), user.roles(), refreshToken, jwtTokenUtil.getAccessTokenTtlSeconds());
+    }
 
-        return ResponseEntity.ok(new JwtResponse(token, user.getUsername(), roles));
+    // Cola de hashing llena: respuesta rápida para que el cliente reintente
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<Map<String, String>> hashingBusy(PasswordHashingBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, e.getRetryAfterSeconds())
+                .body(Map.of("error", e.getMessage()));
     }
 
     private void authenticate(String username, String password) throws Exception {
@@ -1,18 +1,33 @@
 package com.scentalux.controller;
 
+import com.scentalux.dto.BulkStatusResultDTO;
+import com.scentalux.dto.BulkStatusUpdateDTO;
 import com.scentalux.dto.CreateOrderDTO;
+import com.scentalux.dto.CursorPageDTO;
 import com.scentalux.dto.OrderDTO;
-import com.scentalux.dto.OrderItemResponseDTO;
+import com.scentalux.dto.OrderSummaryDTO;
+import com.scentalux.exception.IdempotencyKeyReuseException;
+import com.scentalux.exception.OrderValidationException;
+import com.scentalux.model.OrderStatus;
+import com.scentalux.service.IdempotencyService;
+import com.scentalux.service.OrderExportService;
 import com.scentalux.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/orders")
@@ -21,15 +36,25 @@ import java.util.Map;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping
     public ResponseEntity<OrderDTO> createOrder(
             @Valid @RequestBody CreateOrderDTO orderDTO,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             Authentication authentication) {
         try {
             String username = authentication.getName();
-            OrderDTO createdOrder = orderService.createOrder(orderDTO, username);
+            // Con Idempotency-Key los reintentos devuelven el mismo pedido sin volver a crearlo
+            OrderDTO createdOrder = idempotencyKey == null
+                    ? orderService.createOrder(orderDTO, username)
+                    : idempotencyService.executeOnce(username, idempotencyKey, orderDTO,
+                            () -> orderService.createOrder(orderDTO, username));
             return ResponseEntity.ok(createdOrder);
+        } catch (IdempotencyKeyReuseException e) {
+            // Misma clave con otro carrito: no se repite ni se crea ningún pedido
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build();
         } catch (Exception e) {
             // Return Map<String, String> only for error response
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -38,15 +63,16 @@ public class OrderController {
     }
 
     @GetMapping("/my-orders")
-    public ResponseEntity<List<OrderDTO>> getUserOrders(Authentication authentication) {
+    public ResponseEntity<CursorPageDTO<OrderSummaryDTO>> getUserOrders(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
         try {
             String username = authentication.getName();
-            List<OrderDTO> orders = orderService.getUserOrders(username);
-            return ResponseEntity.ok(orders);
+            return ResponseEntity.ok(orderService.getUserOrderSummaries(username, cursor, size));
         } catch (Exception e) {
-            // Return Map<String, String> only for error response
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(List.of()); // Return an empty list of orders in case of error
+                    .body(new CursorPageDTO<>(List.of(), null)); // Return an empty page in case of error
         }
     }
 
@@ -77,6 +103,17 @@ public class OrderController {
         }
     }
 
+    // Cambio de estado masivo (p. ej. CONFIRMADO → ENVIADO para cientos de pedidos)
+    @PutMapping("/status")
+    public ResponseEntity<List<BulkStatusResultDTO>> bulkUpdateStatus(@Valid @RequestBody BulkStatusUpdateDTO request) {
+        try {
+            return ResponseEntity.ok(orderService.bulkUpdateStatus(request));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(List.of()); // Return an empty result list in case of error
+        }
+    }
+
     @PutMapping("/{orderId}/receipt")
     public ResponseEntity<OrderDTO> uploadReceipt(
             @PathVariable Integer orderId,
@@ -92,52 +129,54 @@ public class OrderController {
         }
     }
 
-    // Endpoint para obtener todos los pedidos (solo admin)
+    // Endpoint para obtener los pedidos paginados por cursor (solo admin)
     @GetMapping
-    public ResponseEntity<List<OrderDTO>> getAllOrders() {
+    public ResponseEntity<CursorPageDTO<OrderDTO>> getAllOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
         try {
-            List<OrderDTO> orders = orderService.findAll().stream()
-                    .map(order -> {
-                        OrderDTO dto = new OrderDTO();
-                        dto.setId(order.getId());
-                        dto.setOrderNumber(order.getOrderNumber());
-                        dto.setCustomerName(order.getCustomerName());
-                        dto.setOrderDate(order.getOrderDate());
-                        dto.setSubtotal(order.getSubtotal());
-                        dto.setTaxes(order.getTaxes());
-                        dto.setTotal(order.getTotal());
-                        dto.setStatus(order.getStatus());
-                        dto.setPaymentMethod(order.getPaymentMethod());
-                        dto.setReceiptImageUrl(order.getReceiptImageUrl());
-                        dto.setShippingAddress(order.getShippingAddress());
-                        dto.setCity(order.getCity());
-                        dto.setPostalCode(order.getPostalCode());
-
-                        // Convertir items
-                        List<OrderItemResponseDTO> itemDTOs = order.getItems().stream()
-                                .map(item -> {
-                                    OrderItemResponseDTO itemDTO = new OrderItemResponseDTO();
-                                    itemDTO.setPerfumeId(item.getPerfume().getId());
-                                    itemDTO.setPerfumeName(item.getPerfume().getName());
-                                    itemDTO.setBrand(item.getPerfume().getBrand());
-                                    itemDTO.setImageUrl(item.getPerfume().getImageUrl());
-                                    itemDTO.setQuantity(item.getQuantity());
-                                    itemDTO.setUnitPrice(item.getUnitPrice());
-                                    itemDTO.setTotalPrice(item.getTotalPrice());
-                                    return itemDTO;
-                                })
-                                .toList(); // Use Stream.toList() here
-
-                        dto.setItems(itemDTOs);
-                        return dto;
-                    })
-                    .toList(); // Use Stream.toList() here
-            return ResponseEntity.ok(orders);
+            return ResponseEntity.ok(orderService.findOrdersPage(cursor, size, status, from, to));
+        } catch (OrderValidationException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new CursorPageDTO<>(List.of(), null));
         } catch (Exception e) {
-            // Return Map<String, String> only for error response
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(List.of()); // Return an empty list of orders in case of error
+                    .body(new CursorPageDTO<>(List.of(), null)); // Return an empty page in case of error
+        }
+    }
+
+    // Endpoint para exportar pedidos en streaming (NDJSON o CSV, solo admin)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = OrderExportService.FORMAT_NDJSON) String format,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        MediaType contentType = switch (format) {
+            case OrderExportService.FORMAT_NDJSON -> MediaType.APPLICATION_NDJSON;
+            case OrderExportService.FORMAT_CSV -> new MediaType("text", "csv", StandardCharsets.UTF_8);
+            default -> null;
+        };
+        Optional<OrderStatus> statusFilter = OrderStatus.from(status);
+        if (contentType == null || (status != null && statusFilter.isEmpty())) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
+
+        StreamingResponseBody body = out ->
+                orderExportService.exportOrders(format, statusFilter.orElse(null), from, to, out);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders." + format + "\"")
+                .body(body);
+    }
+
+    // Endpoint para el dashboard: pedidos por estado
+    @GetMapping("/stats")
+    public ResponseEntity<Map<OrderStatus, Long>> getOrderStats() {
+        return ResponseEntity.ok(orderService.countByStatus());
     }
 
     // Endpoint para eliminar pedido
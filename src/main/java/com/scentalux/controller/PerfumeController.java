@@ -1,17 +1,36 @@
 package com.scentalux.controller;
 
+import com.scentalux.dto.CatalogFilterDTO;
+import com.scentalux.dto.FacetsDTO;
+import com.scentalux.dto.ImportResultDTO;
+import com.scentalux.dto.PageDTO;
 import com.scentalux.dto.PerfumeDTO;
 import com.scentalux.mapper.PerfumeMapper;
 import com.scentalux.model.Perfume;
+import com.scentalux.service.PerfumeImportService;
 import com.scentalux.service.PerfumeService;
+import com.scentalux.service.impl.CatalogColumns;
+import com.scentalux.service.impl.CatalogSnapshot;
+import com.scentalux.service.impl.PerfumeCatalogCache;
+import com.scentalux.service.impl.PerfumeRankings;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.function.IntFunction;
 
 @RestController
 @RequestMapping("/perfumes")
@@ -20,31 +39,135 @@ import java.util.Map;
 public class PerfumeController {
 
     private final PerfumeService perfumeService;
+    private final CatalogSnapshot catalogSnapshot;
+    private final CatalogColumns catalogColumns;
+    private final PerfumeImportService perfumeImportService;
+    private final PerfumeRankings perfumeRankings;
+    private final PerfumeCatalogCache catalogCache;
     
     // Define a constant for the error key
     private static final String ERROR_KEY = "error"; 
+    private static final String DUPLICATE_PERFUME = "Ya existe un perfume con esa marca y nombre";
 
     // ✅ Listar todos los perfumes
+    // Catálogo publicado: bytes JSON/gzip ya generados, sin mapear ni serializar por petición
     @GetMapping
-    public ResponseEntity<List<PerfumeDTO>> listar() {
+    public ResponseEntity<byte[]> listar(WebRequest request) {
         try {
-            List<Perfume> perfumes = perfumeService.findAll();
-            List<PerfumeDTO> perfumesDTO = perfumes.stream()
-                    .map(PerfumeMapper::toDTO)
-                    .toList();
-            return ResponseEntity.ok(perfumesDTO);
+            CatalogSnapshot.Snapshot snapshot = catalogSnapshot.current();
+            boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+            String etag = gzip ? snapshot.gzipEtag() : snapshot.etag();
+            if (request.checkNotModified(etag)) {
+                return null; // 304
+            }
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING);
+            if (gzip) {
+                response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            return response.body(gzip ? snapshot.gzip() : snapshot.json());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(null);
+        }
+    }
+
+    // ✅ Listar todos los perfumes, publicados o no (panel de administración)
+    // El listado sale de la caché del catálogo; el 304 ahorra la transferencia
+    @GetMapping("/admin")
+    public ResponseEntity<Object> listarTodos(WebRequest request) {
+        try {
+            return rendered(catalogCache.rendered("admin", perfumeService::listCatalog), CacheControl.noCache(), request);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(null);
         }
     }
 
+    // ✅ Catálogo público: filtros, orden y paginación en BD
+    @GetMapping("/catalog")
+    public ResponseEntity<Object> catalogo(CatalogFilterDTO filter,
+                                           @RequestParam(defaultValue = "0") int page,
+                                           @RequestParam(defaultValue = "24") int size,
+                                           @RequestParam(defaultValue = "createdAt") String sort,
+                                           @RequestParam(defaultValue = "desc") String direction) {
+        try {
+            PageDTO<PerfumeDTO> result = perfumeService.searchCatalog(filter, page, size, sort, direction);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(ERROR_KEY, e.getMessage()));  // Use constant here
+        }
+    }
+
+    // ✅ Conteos por marca, categoría, nota y tramo de precio (mismos filtros que /catalog)
+    @GetMapping("/facets")
+    public ResponseEntity<FacetsDTO> facetas(CatalogFilterDTO filter) {
+        return ResponseEntity.ok(catalogColumns.facets(filter));
+    }
+
+    // ✅ Carrusel "más vendidos" (top-K en memoria, refrescado periódicamente)
+    @GetMapping("/best-sellers")
+    public ResponseEntity<Object> masVendidos(@RequestParam(defaultValue = "12") int limit, WebRequest request) {
+        return ranking("best", limit, perfumeRankings::bestSellers, request);
+    }
+
+    // ✅ Carrusel "novedades" (últimos publicados)
+    @GetMapping("/new-arrivals")
+    public ResponseEntity<Object> novedades(@RequestParam(defaultValue = "12") int limit, WebRequest request) {
+        return ranking("new", limit, perfumeRankings::newArrivals, request);
+    }
+
+    // El ETag cambia si cambia el orden del ranking o alguno de sus perfumes
+    private ResponseEntity<Object> ranking(String name, int limit, IntFunction<List<Integer>> ranking,
+                                           WebRequest request) {
+        if (limit < 1 || limit > perfumeRankings.size()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(ERROR_KEY, "limit debe estar entre 1 y " + perfumeRankings.size()));
+        }
+        List<Integer> ids = ranking.apply(limit);
+        // La vista se identifica por los ids: un ranking refrescado con otro orden se serializa de nuevo
+        PerfumeCatalogCache.Rendered body = catalogCache.rendered(name + ids,
+                () -> perfumeService.findCatalogEntries(ids));
+        return rendered(body, CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic(), request);
+    }
+
+    // ✅ Buscar perfumes por texto (nombre, marca, descripción, notas)
+    @GetMapping("/search")
+    public ResponseEntity<Object> buscar(@RequestParam("q") String query,
+                                         @RequestParam(defaultValue = "0") int page,
+                                         @RequestParam(defaultValue = "24") int size) {
+        try {
+            return ResponseEntity.ok(perfumeService.search(query, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(ERROR_KEY, e.getMessage()));  // Use constant here
+        }
+    }
+
+    // ✅ Filtrar por notas olfativas (?all=vainilla,oud&any=rosa,jazmín)
+    @GetMapping("/by-notes")
+    public ResponseEntity<Object> filtrarPorNotas(@RequestParam(required = false) List<String> all,
+                                                  @RequestParam(required = false) List<String> any,
+                                                  @RequestParam(defaultValue = "0") int page,
+                                                  @RequestParam(defaultValue = "24") int size) {
+        try {
+            return ResponseEntity.ok(perfumeService.findByNotes(all, any, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(ERROR_KEY, e.getMessage()));  // Use constant here
+        }
+    }
+
     // ✅ Obtener perfume por ID
     @GetMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> obtenerPorId(@PathVariable Integer id) {
+    public ResponseEntity<Object> obtenerPorId(@PathVariable Integer id, WebRequest request) {
         try {
-            Perfume perfume = perfumeService.findById(id);
-            return ResponseEntity.ok(Map.of("perfume", PerfumeMapper.toDTO(perfume)));
+            PerfumeCatalogCache.Rendered body = catalogCache.rendered(id,
+                    () -> Map.of("perfume", perfumeService.findCatalogEntry(id)));
+            return rendered(body, CacheControl.noCache(), request);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of(ERROR_KEY, e.getMessage()));  // Use constant here
@@ -58,20 +181,40 @@ public class PerfumeController {
             Perfume perfume = PerfumeMapper.toEntity(dto);
             Perfume creado = perfumeService.save(perfume);
             return new ResponseEntity<>(PerfumeMapper.toDTO(creado), HttpStatus.CREATED);
+        } catch (DataIntegrityViolationException e) {
+            return integrityError(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of(ERROR_KEY, e.getMessage()));  // Use constant here
         }
     }
 
+    // ✅ Importación masiva: array JSON de perfumes o CSV con cabecera (notas separadas por '|')
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, "text/csv"})
+    public ResponseEntity<Object> importar(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                           InputStream body) {
+        String format = contentType.isCompatibleWith(MediaType.APPLICATION_JSON)
+                ? PerfumeImportService.FORMAT_JSON : PerfumeImportService.FORMAT_CSV;
+        try {
+            ImportResultDTO result = perfumeImportService.importPerfumes(format, body);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            // Fichero ilegible (cabecera o JSON mal formado); los errores por fila van en el informe
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(ERROR_KEY, e.getMessage()));
+        }
+    }
+
     // ✅ Actualizar perfume existente
     @PutMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> modificar(@PathVariable Integer id, @Valid @RequestBody PerfumeDTO dto) {
+    public ResponseEntity<Object> modificar(@PathVariable Integer id, @Valid @RequestBody PerfumeDTO dto) {
         try {
             Perfume existente = perfumeService.findById(id);
             Perfume actualizado = PerfumeMapper.updateEntityFromDTO(dto, existente);
             Perfume guardado = perfumeService.update(actualizado, id);
             return ResponseEntity.ok(Map.of("perfume", PerfumeMapper.toDTO(guardado)));
+        } catch (DataIntegrityViolationException e) {
+            return integrityError(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of(ERROR_KEY, e.getMessage()));  // Use constant here
@@ -109,17 +252,61 @@ public class PerfumeController {
     public ResponseEntity<Object> updateStock(@PathVariable Integer id, @RequestBody Map<String, Integer> body) {
         try {
             int quantitySold = body.getOrDefault("quantitySold", 0);
-            Perfume perfume = perfumeService.findById(id);
-            if (quantitySold > perfume.getStock()) {
+            if (quantitySold < 0) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of(ERROR_KEY, "La cantidad vendida no puede ser negativa"));
+            }
+            int updatedRows = perfumeService.decrementStock(id, quantitySold);
+            PerfumeDTO perfume = perfumeService.findCatalogEntry(id);
+            if (updatedRows == 0) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                         .body(Map.of(ERROR_KEY, "Stock insuficiente"));  // Use constant here
             }
-            perfume.setStock(perfume.getStock() - quantitySold);
-            Perfume updated = perfumeService.update(perfume, id);
-            return ResponseEntity.ok(PerfumeMapper.toDTO(updated));
+            return ResponseEntity.ok()
+                    .header("X-Updated-Rows", String.valueOf(updatedRows))
+                    .body(perfume);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of(ERROR_KEY, e.getMessage()));  // Use constant here
         }
     }
+
+    // Marca y nombre repetidos -> 409; cualquier otra violación sigue siendo un 400
+    private static ResponseEntity<Object> integrityError(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                    && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(Perfume.UK_BRAND_NAME)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of(ERROR_KEY, DUPLICATE_PERFUME));
+            }
+        }
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of(ERROR_KEY, e.getMostSpecificCause().getMessage()));
+    }
+
+    // Bytes y ETag ya calculados en la caché: un 304 no consulta la BD ni serializa
+    private static ResponseEntity<Object> rendered(PerfumeCatalogCache.Rendered body, CacheControl cacheControl,
+                                                   WebRequest request) {
+        if (request.checkNotModified(body.etag())) {
+            return null; // 304
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(cacheControl)
+                .body(body.json());
+    }
+
+    // "gzip" aceptado salvo que venga con q=0
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            if (tokens[0].trim().equalsIgnoreCase("gzip")) {
+                return tokens.length == 1 || !tokens[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
 }
@@ -2,6 +2,8 @@ package com.scentalux.controller;
 
 import com.scentalux.dto.RolDTO;
 import com.scentalux.model.Role;
+import com.scentalux.security.TokenVersionService;
+import com.scentalux.security.UserDetailsCache;
 import com.scentalux.service.RolService;
 import com.scentalux.exception.ResourceNotFoundException;
 import jakarta.validation.Valid;
@@ -25,6 +27,8 @@ public class RolController {
 
     private final RolService service;
     private final ModelMapper modelMapper;
+    private final TokenVersionService tokenVersionService;
+    private final UserDetailsCache userDetailsCache;
 
     // Obtener todos los roles
     @GetMapping
@@ -65,6 +69,9 @@ public class RolController {
         if (updated == null) {
             throw new ResourceNotFoundException("Role not found with id: " + id);  // Custom exception
         }
+        // Los tokens llevan el nombre del rol: se revocan los de sus usuarios
+        tokenVersionService.revokeRole(id);
+        userDetailsCache.evictAll();
         return ResponseEntity.ok(convertToDto(updated));
     }
 
@@ -72,6 +79,8 @@ public class RolController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable("id") Integer id) {
         service.delete(id);  // No need to capture return value if it's void
+        tokenVersionService.revokeRole(id);
+        userDetailsCache.evictAll();
         return ResponseEntity.noContent().build();  // Return 204 No Content
     }
 
@@ -3,6 +3,8 @@ package com.scentalux.controller;
 import com.scentalux.dto.UserRolDTO;
 import com.scentalux.model.Role;
 import com.scentalux.model.User;
+import com.scentalux.security.TokenVersionService;
+import com.scentalux.security.UserDetailsCache;
 import com.scentalux.service.RolService;
 import com.scentalux.service.UsuarioService;
 import lombok.RequiredArgsConstructor;
@@ -19,6 +21,8 @@ public class UserRoleController {
 
     private final UsuarioService usuarioService;
     private final RolService rolService;
+    private final TokenVersionService tokenVersionService;
+    private final UserDetailsCache userDetailsCache;
 
     // 1. Asignar un rol a un usuario
     @PostMapping
@@ -29,6 +33,9 @@ public class UserRoleController {
         if (!user.getRoles().contains(role)) {
             user.getRoles().add(role);
             usuarioService.save(user);
+            // Los tokens emitidos llevan los roles anteriores
+            tokenVersionService.revoke(user.getIdUser());
+            userDetailsCache.evict(user.getIdUser());
             return ResponseEntity.ok("Rol asignado exitosamente al usuario.");
         } else {
             return ResponseEntity.badRequest().body("El usuario ya tiene este rol.");
@@ -47,6 +54,8 @@ public class UserRoleController {
         if (user.getRoles().contains(role)) {
             user.getRoles().remove(role);
             usuarioService.save(user);
+            tokenVersionService.revoke(user.getIdUser());
+            userDetailsCache.evict(user.getIdUser());
             return ResponseEntity.ok("Rol eliminado exitosamente del usuario.");
         } else {
             return ResponseEntity.badRequest().body("El usuario no tiene este rol.");
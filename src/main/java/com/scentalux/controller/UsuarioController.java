@@ -1,13 +1,18 @@
 package com.scentalux.controller;
 
 import com.scentalux.dto.UsuarioDTO;
+import com.scentalux.exception.PasswordHashingBusyException;
 import com.scentalux.model.Role;
 import com.scentalux.model.User;
+import com.scentalux.security.RefreshTokenService;
+import com.scentalux.security.TokenVersionService;
+import com.scentalux.security.UserDetailsCache;
 import com.scentalux.service.RolService;
 import com.scentalux.service.UsuarioService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -27,6 +32,9 @@ public class UsuarioController {
     private final RolService rolService;
     private final ModelMapper mapper;
     private final PasswordEncoder passwordEncoder;
+    private final TokenVersionService tokenVersionService;
+    private final UserDetailsCache userDetailsCache;
+    private final RefreshTokenService refreshTokenService;
 
     // ✅ Listar usuarios
     @GetMapping
@@ -77,6 +85,8 @@ public class UsuarioController {
             UsuarioDTO respuesta = mapper.map(creado, UsuarioDTO.class);
             return new ResponseEntity<>(respuesta, HttpStatus.CREATED);
 
+        } catch (PasswordHashingBusyException e) {
+            return hashingBusy(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
@@ -94,9 +104,15 @@ public class UsuarioController {
             existente.setEnabled(dto.getEnabled() != null ? dto.getEnabled() : existente.getEnabled());
 
             User actualizado = usuarioService.update(existente, id);
+            // Cambian contraseña, usuario o enabled: los tokens emitidos dejan de valer
+            tokenVersionService.revoke(id);
+            userDetailsCache.evict(id);
+            refreshTokenService.revokeAll(id);
             UsuarioDTO respuesta = mapper.map(actualizado, UsuarioDTO.class);
             return ResponseEntity.ok(respuesta);
 
+        } catch (PasswordHashingBusyException e) {
+            return hashingBusy(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
@@ -108,10 +124,20 @@ public class UsuarioController {
     public ResponseEntity<?> eliminar(@PathVariable("id") Integer id) {
         try {
             usuarioService.delete(id);
+            tokenVersionService.revoke(id);
+            userDetailsCache.evict(id);
+            refreshTokenService.revokeAll(id);
             return ResponseEntity.noContent().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("error", e.getMessage()));
         }
     }
+
+    // Cola de hashing de contraseñas llena: 503 inmediato con Retry-After
+    private static ResponseEntity<Map<String, String>> hashingBusy(PasswordHashingBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, e.getRetryAfterSeconds())
+                .body(Map.of("error", e.getMessage()));
+    }
 }
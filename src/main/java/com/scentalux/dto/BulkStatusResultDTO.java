@@ -0,0 +1,16 @@
+package com.scentalux.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusResultDTO {
+
+    public enum Result { UPDATED, NOT_FOUND, ILLEGAL_TRANSITION }
+
+    private String order; // ID o número tal como llegó en la petición
+    private Result result;
+}
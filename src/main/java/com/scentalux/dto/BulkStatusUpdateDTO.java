@@ -0,0 +1,20 @@
+package com.scentalux.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateDTO {
+    // Se puede indicar los pedidos por ID, por número, o ambos
+    private List<Integer> orderIds;
+    private List<String> orderNumbers;
+
+    @NotBlank(message = "El estado destino es obligatorio")
+    private String status;
+}
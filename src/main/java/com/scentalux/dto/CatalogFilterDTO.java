@@ -0,0 +1,17 @@
+package com.scentalux.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Filtros del catálogo público (todos opcionales)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogFilterDTO {
+    private String brand;
+    private String category; // PARA_EL | PARA_ELLA | UNISEX
+    private Double minPrice;
+    private Double maxPrice;
+    private Boolean inStock;
+}
@@ -0,0 +1,29 @@
+package com.scentalux.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+// Conteos para la barra de filtros (cada faceta ignora su propio filtro)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetsDTO {
+    private long total;
+    private Map<String, Long> brands;
+    private Map<String, Long> categories;
+    private Map<String, Long> notes;
+    private List<PriceBucketDTO> prices;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceBucketDTO {
+        private double min;
+        private Double max; // null = sin límite superior
+        private long count;
+    }
+}
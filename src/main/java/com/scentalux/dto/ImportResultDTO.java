@@ -0,0 +1,28 @@
+package com.scentalux.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ImportResultDTO {
+
+    private long total;
+    private long inserted;
+    private long updated;
+    private long failed;
+    private List<RowErrorDTO> errors = new ArrayList<>();
+    private boolean errorsTruncated; // hay más filas con error que las listadas
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowErrorDTO {
+        private long row; // posición en el fichero, empezando en 1 (sin contar la cabecera CSV)
+        private List<String> errors;
+    }
+}
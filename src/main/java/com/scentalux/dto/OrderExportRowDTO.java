@@ -0,0 +1,30 @@
+package com.scentalux.dto;
+
+import com.scentalux.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Fila plana pedido + item usada por la exportación en streaming
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderExportRowDTO {
+    private Integer orderId;
+    private String orderNumber;
+    private LocalDateTime orderDate;
+    private OrderStatus status;
+    private String customerName;
+    private String paymentMethod;
+    private Double subtotal;
+    private Double taxes;
+    private Double total;
+    private String city;
+    private Integer perfumeId;   // null si el pedido no tiene items
+    private String perfumeName;
+    private Integer quantity;
+    private Double unitPrice;
+    private Double totalPrice;
+}
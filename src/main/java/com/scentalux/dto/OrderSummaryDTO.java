@@ -0,0 +1,21 @@
+package com.scentalux.dto;
+
+import com.scentalux.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Resumen ligero para el historial de pedidos del cliente
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryDTO {
+    private Integer id;
+    private String orderNumber;
+    private LocalDateTime orderDate;
+    private Double total;
+    private OrderStatus status;
+    private Long itemCount;
+}
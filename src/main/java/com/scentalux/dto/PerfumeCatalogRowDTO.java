@@ -0,0 +1,23 @@
+package com.scentalux.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Columnas de un perfume leídas como proyección (sin entidad gestionada ni notas)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PerfumeCatalogRowDTO {
+    private Integer id;
+    private String name;
+    private String brand;
+    private double price;
+    private int stock;
+    private String imageUrl;
+    private String description;
+    private String category;
+    private LocalDateTime createdAt;
+}
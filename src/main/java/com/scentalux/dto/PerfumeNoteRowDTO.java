@@ -0,0 +1,14 @@
+package com.scentalux.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Una nota de un perfume leída como proyección
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PerfumeNoteRowDTO {
+    private Integer perfumeId;
+    private String note;
+}
@@ -0,0 +1,13 @@
+package com.scentalux.event;
+
+import java.util.Collection;
+
+// Se publica cuando cambian uno o más perfumes (alta, edición, borrado o stock)
+public record PerfumeChangedEvent(Collection<Integer> perfumeIds, Type type) {
+
+    public enum Type {
+        UPSERTED,
+        DELETED,
+        STOCK_CHANGED
+    }
+}
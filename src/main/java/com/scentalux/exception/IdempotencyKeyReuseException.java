@@ -0,0 +1,8 @@
+package com.scentalux.exception;
+
+// La misma Idempotency-Key llegó con un cuerpo distinto al de la petición original (422)
+public class IdempotencyKeyReuseException extends RuntimeException {
+    public IdempotencyKeyReuseException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.scentalux.exception;
+
+// Refresh token desconocido, caducado, revocado o reutilizado (401)
+public class InvalidRefreshTokenException extends RuntimeException {
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.scentalux.exception;
+
+import java.time.Duration;
+
+// La cola de hashing de contraseñas está llena: el cliente debe reintentar más tarde (503)
+public class PasswordHashingBusyException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public PasswordHashingBusyException(Duration retryAfter) {
+        super("PASSWORD_HASHING_BUSY");
+        this.retryAfter = retryAfter;
+    }
+
+    // Valor de la cabecera Retry-After (segundos, mínimo 1)
+    public String getRetryAfterSeconds() {
+        return String.valueOf(Math.max(1, retryAfter.toSeconds()));
+    }
+}
@@ -1,8 +1,12 @@
 package com.scentalux.mapper;
 
+import com.scentalux.dto.PerfumeCatalogRowDTO;
 import com.scentalux.dto.PerfumeDTO;
 import com.scentalux.model.Perfume;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class PerfumeMapper {
 
     // Convertir modelo → DTO (para enviar al frontend)
@@ -17,11 +21,29 @@ public class PerfumeMapper {
                 perfume.getDescription(),
                 mapCategoryToFrontend(perfume.getCategory()),
                 perfume.isPublished(),
-                perfume.getNotes(),
+                // Copia: el DTO puede vivir en caché fuera de la sesión de Hibernate
+                perfume.getNotes() != null ? new ArrayList<>(perfume.getNotes()) : null,
                 perfume.getCreatedAt()
         );
     }
 
+    // Convertir proyección del catálogo público → DTO (siempre publicado)
+    public static PerfumeDTO toDTO(PerfumeCatalogRowDTO row, List<String> notes) {
+        return new PerfumeDTO(
+                row.getId().toString(),
+                row.getName(),
+                row.getBrand(),
+                row.getPrice(),
+                row.getStock(),
+                row.getImageUrl(),
+                row.getDescription(),
+                mapCategoryToFrontend(row.getCategory()),
+                true,
+                notes,
+                row.getCreatedAt()
+        );
+    }
+
     // Convertir DTO → modelo (para guardar en BD)
     public static Perfume toEntity(PerfumeDTO dto) {
         Perfume perfume = new Perfume();
@@ -66,7 +88,7 @@ public class PerfumeMapper {
     }
 
     // Mapear categoría de frontend → backend
-    private static String mapCategoryToBackend(String frontendCategory) {
+    public static String mapCategoryToBackend(String frontendCategory) {
         switch (frontendCategory) {
             case "Para Él": return "PARA_EL";
             case "Para Ella": return "PARA_ELLA";
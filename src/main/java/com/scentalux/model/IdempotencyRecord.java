@@ -0,0 +1,37 @@
+package com.scentalux.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Respuesta ya procesada para una clave Idempotency-Key (usuario + clave)
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    // Longitud máxima de la clave completa (usuario + ":" + Idempotency-Key)
+    public static final int KEY_LENGTH = 200;
+
+    @Id
+    @Column(name = "idempotency_key", length = KEY_LENGTH)
+    private String key;
+
+    @Lob
+    @Column(nullable = false)
+    private String response; // OrderDTO en JSON; vacío mientras la transacción del pedido sigue abierta
+
+    // SHA-256 del cuerpo de la petición original (null en registros anteriores)
+    @Column(length = 64)
+    private String fingerprint;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -10,7 +10,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_date_id", columnList = "order_date, id"),
+        @Index(name = "idx_orders_user_date_id", columnList = "user_id, order_date, id"),
+        @Index(name = "idx_orders_status_date", columnList = "status, order_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -26,7 +30,7 @@ public class Order {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @Column(nullable = false)
+    @Column(name = "order_date", nullable = false)
     private LocalDateTime orderDate = LocalDateTime.now();
 
     @Column(nullable = false)
@@ -38,8 +42,10 @@ public class Order {
     @Column(nullable = false)
     private Double total;
 
-    @Column(nullable = false, length = 50)
-    private String status = "PENDIENTE"; // PENDIENTE, CONFIRMADO, ENVIADO, ENTREGADO, CANCELADO
+    // Columna heredada de texto libre: normalizar con db/migration/V1__normalize_order_status.sql
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OrderStatus status = OrderStatus.PENDIENTE;
 
     @Column(nullable = false, length = 20)
     private String paymentMethod; // YAPE, PLIN
@@ -57,8 +63,11 @@ public class Order {
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OrderItem> items = new ArrayList<>();
 
+    // El servicio asigna el número con OrderNumberGenerator; esto es solo un respaldo
     @PrePersist
     public void generateOrderNumber() {
-        this.orderNumber = "ORD" + System.currentTimeMillis();
+        if (this.orderNumber == null) {
+            this.orderNumber = "ORD" + System.currentTimeMillis();
+        }
     }
 }
\ No newline at end of file
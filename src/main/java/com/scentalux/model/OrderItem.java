@@ -31,4 +31,8 @@ public class OrderItem {
 
     @Column(nullable = false)
     private Double totalPrice;
+
+    // false mientras el descuento de stock siga pendiente en el ledger en memoria
+    @Column(name = "stock_applied", nullable = false, columnDefinition = "boolean default true")
+    private boolean stockApplied = true;
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.scentalux.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+// Estados de un pedido y transiciones permitidas entre ellos
+public enum OrderStatus {
+    PENDIENTE,
+    CONFIRMADO,
+    ENVIADO,
+    ENTREGADO,
+    CANCELADO;
+
+    public boolean canTransitionTo(OrderStatus target) {
+        return switch (this) {
+            case PENDIENTE -> target == CONFIRMADO || target == CANCELADO;
+            case CONFIRMADO -> target == ENVIADO || target == CANCELADO;
+            case ENVIADO -> target == ENTREGADO;
+            case ENTREGADO, CANCELADO -> false;
+        };
+    }
+
+    // Estados desde los que se puede llegar a target
+    public static List<OrderStatus> sourcesOf(OrderStatus target) {
+        return Arrays.stream(values())
+                .filter(status -> status.canTransitionTo(target))
+                .toList();
+    }
+
+    public static Optional<OrderStatus> from(String value) {
+        if (value == null) {
+            return Optional.empty();
+        }
+        return Arrays.stream(values())
+                .filter(status -> status.name().equalsIgnoreCase(value.trim()))
+                .findFirst();
+    }
+}
@@ -4,17 +4,29 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "perfumes")
+@Table(name = "perfumes", uniqueConstraints = {
+        // Clave natural para la importación masiva (upsert por marca + nombre);
+        // duplicados previos: db/migration/V2__dedupe_perfumes.sql
+        @UniqueConstraint(name = Perfume.UK_BRAND_NAME, columnNames = {"brand", "name"})
+}, indexes = {
+        // Catálogo público: siempre filtra por published y ordena/filtra por precio o fecha
+        @Index(name = "idx_perfumes_pub_cat_price", columnList = "published, category, price"),
+        @Index(name = "idx_perfumes_pub_brand_price", columnList = "published, brand, price"),
+        @Index(name = "idx_perfumes_pub_created", columnList = "published, created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Perfume {
 
+    public static final String UK_BRAND_NAME = "uk_perfumes_brand_name";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
@@ -32,6 +44,7 @@ public class Perfume {
     private boolean published = true;
 
     @ElementCollection
+    @BatchSize(size = 100) // las notas de una página se cargan en una sola consulta
     @CollectionTable(name = "perfume_notes", joinColumns = @JoinColumn(name = "perfume_id"))
     @Column(name = "note")
     private List<String> notes;
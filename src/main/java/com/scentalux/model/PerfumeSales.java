@@ -0,0 +1,23 @@
+package com.scentalux.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Unidades vendidas por perfume (pedidos no cancelados); se actualiza al crear y cancelar pedidos
+@Entity
+@Table(name = "perfume_sales", indexes = {
+        @Index(name = "idx_perfume_sales_sold", columnList = "sold")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PerfumeSales {
+    @Id
+    @Column(name = "perfume_id")
+    private Integer perfumeId;
+
+    @Column(nullable = false)
+    private long sold;
+}
@@ -37,6 +37,11 @@ public class User {
     @Column(nullable = false)
     private Boolean enabled;
 
+    // Versión de los tokens emitidos: al subirla quedan revocados todos los anteriores.
+    // Solo cambia con IUserRepo.incrementTokenVersion (un save con la entidad no la pisa)
+    @Column(nullable = false, updatable = false)
+    private int tokenVersion;
+
     // Relación de muchos a muchos
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(name="user_role",
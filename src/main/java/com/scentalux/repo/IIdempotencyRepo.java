@@ -0,0 +1,35 @@
+package com.scentalux.repo;
+
+import com.scentalux.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface IIdempotencyRepo extends IGenericRepo<IdempotencyRecord, String> {
+
+    // Solo INSERT (nunca merge): si la clave existe falla, y si otra transacción la tiene
+    // sin confirmar, espera a que termine
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, response, fingerprint, expires_at) " +
+                   "VALUES (:key, '', :fingerprint, :expiresAt)", nativeQuery = true)
+    void insertPending(@Param("key") String key,
+                       @Param("fingerprint") String fingerprint,
+                       @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.response = :response WHERE r.key = :key")
+    int complete(@Param("key") String key, @Param("response") String response);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.key = :key AND r.expiresAt < :now")
+    int deleteExpired(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
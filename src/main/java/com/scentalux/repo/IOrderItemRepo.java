@@ -1,6 +1,42 @@
 package com.scentalux.repo;
 
 import com.scentalux.model.OrderItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface IOrderItemRepo extends IGenericRepo<OrderItem, Integer> {
-}
\ No newline at end of file
+
+    // Proyección ligera de los items cuyo stock aún no se ha descontado en BD
+    interface PendingStock {
+        Integer getId();
+        Integer getPerfumeId();
+        Integer getQuantity();
+    }
+
+    // Unidades por perfume en un conjunto de pedidos
+    interface SoldQuantity {
+        Integer getPerfumeId();
+        Long getQuantity();
+    }
+
+    // Items de varios pedidos con su perfume, en una sola consulta
+    @Query("SELECT i FROM OrderItem i JOIN FETCH i.perfume WHERE i.order.id IN :orderIds ORDER BY i.id")
+    List<OrderItem> findWithPerfumeByOrderIdIn(@Param("orderIds") Collection<Integer> orderIds);
+
+    @Query("SELECT i.id AS id, i.perfume.id AS perfumeId, i.quantity AS quantity " +
+           "FROM OrderItem i WHERE i.stockApplied = false ORDER BY i.id")
+    List<PendingStock> findPendingStock(Pageable pageable);
+
+    @Query("SELECT i.perfume.id AS perfumeId, SUM(i.quantity) AS quantity " +
+           "FROM OrderItem i WHERE i.order.id IN :orderIds GROUP BY i.perfume.id")
+    List<SoldQuantity> sumQuantitiesByOrderIdIn(@Param("orderIds") Collection<Integer> orderIds);
+
+    @Modifying
+    @Query("UPDATE OrderItem i SET i.stockApplied = true WHERE i.id IN :ids")
+    int markStockApplied(@Param("ids") Collection<Integer> ids);
+}
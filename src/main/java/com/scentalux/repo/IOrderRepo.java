@@ -1,22 +1,109 @@
 package com.scentalux.repo;
 
+import com.scentalux.dto.OrderExportRowDTO;
+import com.scentalux.dto.OrderSummaryDTO;
 import com.scentalux.model.Order;
+import com.scentalux.model.OrderStatus;
 import com.scentalux.model.User;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface IOrderRepo extends IGenericRepo<Order, Integer> {
+
+    // Proyección mínima para cambios de estado masivos (sin hidratar pedidos)
+    interface StatusView {
+        Integer getId();
+        String getOrderNumber();
+        OrderStatus getStatus();
+    }
+
+    interface StatusCount {
+        OrderStatus getStatus();
+        Long getTotal();
+    }
     
     List<Order> findByUserOrderByOrderDateDesc(User user);
     
     Optional<Order> findByOrderNumber(String orderNumber);
     
-    @Query("SELECT o FROM Order o WHERE o.user.username = :username ORDER BY o.orderDate DESC")
-    List<Order> findByUsernameOrderByOrderDateDesc(@Param("username") String username);
+    // Detalle completo de un pedido (items + perfumes) en una sola consulta
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.perfume " +
+           "WHERE o.orderNumber = :orderNumber")
+    Optional<Order> findWithItemsByOrderNumber(@Param("orderNumber") String orderNumber);
+
+    // Historial del cliente: resúmenes por cursor (orderDate, id) sin cargar items.
+    // El conteo va en una subconsulta correlacionada: solo se evalúa para las filas de la página
+    // (un GROUP BY con JOIN agregaría todo el historial restante antes del LIMIT)
+    @Query("SELECT new com.scentalux.dto.OrderSummaryDTO(o.id, o.orderNumber, o.orderDate, o.total, o.status, " +
+           "(SELECT COUNT(i) FROM OrderItem i WHERE i.order = o)) " +
+           "FROM Order o " +
+           "WHERE o.user.username = :username " +
+           "AND (:cursorDate IS NULL OR o.orderDate < :cursorDate " +
+           "     OR (o.orderDate = :cursorDate AND o.id < :cursorId)) " +
+           "ORDER BY o.orderDate DESC, o.id DESC")
+    List<OrderSummaryDTO> findSummaryPage(@Param("username") String username,
+                                          @Param("cursorDate") LocalDateTime cursorDate,
+                                          @Param("cursorId") Integer cursorId,
+                                          Pageable pageable);
     
-    @Query("SELECT COUNT(o) FROM Order o WHERE o.status = 'PENDIENTE'")
-    Long countPendingOrders();
+    // Paginación keyset: el cursor es el (orderDate, id) del último pedido de la página anterior
+    @Query("SELECT o FROM Order o " +
+           "WHERE (:status IS NULL OR o.status = :status) " +
+           "AND (:from IS NULL OR o.orderDate >= :from) " +
+           "AND (:to IS NULL OR o.orderDate < :to) " +
+           "AND (:cursorDate IS NULL OR o.orderDate < :cursorDate " +
+           "     OR (o.orderDate = :cursorDate AND o.id < :cursorId)) " +
+           "ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findPage(@Param("status") OrderStatus status,
+                         @Param("from") LocalDateTime from,
+                         @Param("to") LocalDateTime to,
+                         @Param("cursorDate") LocalDateTime cursorDate,
+                         @Param("cursorId") Integer cursorId,
+                         Pageable pageable);
+
+    // Cursor de solo avance (fetch size MIN_VALUE = streaming en MySQL), sin hidratar entidades
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.scentalux.dto.OrderExportRowDTO(o.id, o.orderNumber, o.orderDate, o.status, " +
+           "o.customerName, o.paymentMethod, o.subtotal, o.taxes, o.total, o.city, " +
+           "p.id, p.name, i.quantity, i.unitPrice, i.totalPrice) " +
+           "FROM Order o LEFT JOIN o.items i LEFT JOIN i.perfume p " +
+           "WHERE (:status IS NULL OR o.status = :status) " +
+           "AND (:from IS NULL OR o.orderDate >= :from) " +
+           "AND (:to IS NULL OR o.orderDate < :to) " +
+           "ORDER BY o.orderDate, o.id, i.id")
+    Stream<OrderExportRowDTO> streamExportRows(@Param("status") OrderStatus status,
+                                               @Param("from") LocalDateTime from,
+                                               @Param("to") LocalDateTime to);
+
+    @Query("SELECT o.id AS id, o.orderNumber AS orderNumber, o.status AS status FROM Order o WHERE o.id IN :ids")
+    List<StatusView> findStatusByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Query("SELECT o.id AS id, o.orderNumber AS orderNumber, o.status AS status FROM Order o " +
+           "WHERE o.orderNumber IN :orderNumbers")
+    List<StatusView> findStatusByOrderNumberIn(@Param("orderNumbers") Collection<String> orderNumbers);
+
+    // Solo cambia los pedidos que siguen en un estado de origen válido
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status WHERE o.id IN :ids AND o.status IN :sources")
+    int updateStatus(@Param("ids") Collection<Integer> ids,
+                     @Param("status") OrderStatus status,
+                     @Param("sources") Collection<OrderStatus> sources);
+
+    // Usado para reconciliar los contadores en memoria por estado
+    @Query("SELECT o.status AS status, COUNT(o) AS total FROM Order o GROUP BY o.status")
+    List<StatusCount> countByStatus();
 }
\ No newline at end of file
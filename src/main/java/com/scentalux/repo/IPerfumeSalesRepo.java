@@ -0,0 +1,37 @@
+package com.scentalux.repo;
+
+import com.scentalux.model.PerfumeSales;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface IPerfumeSalesRepo extends IGenericRepo<PerfumeSales, Integer> {
+
+    // Suma atómica: crea la fila la primera vez que se vende el perfume
+    @Modifying
+    @Query(value = "INSERT INTO perfume_sales (perfume_id, sold) VALUES (:perfumeId, :quantity) " +
+                   "ON DUPLICATE KEY UPDATE sold = sold + :quantity", nativeQuery = true)
+    int addSold(@Param("perfumeId") Integer perfumeId, @Param("quantity") long quantity);
+
+    @Modifying
+    @Query("UPDATE PerfumeSales s SET s.sold = CASE WHEN s.sold > :quantity THEN s.sold - :quantity ELSE 0 END " +
+           "WHERE s.perfumeId = :perfumeId")
+    int subtractSold(@Param("perfumeId") Integer perfumeId, @Param("quantity") long quantity);
+
+    // Más vendidos publicados (recorre idx_perfume_sales_sold de mayor a menor)
+    @Query("SELECT s.perfumeId FROM PerfumeSales s, Perfume p " +
+           "WHERE p.id = s.perfumeId AND p.published = true AND s.sold > 0 " +
+           "ORDER BY s.sold DESC, s.perfumeId")
+    List<Integer> findTopSellerIds(Pageable pageable);
+
+    // Carga inicial desde el histórico de pedidos; idempotente: repetirla deja los mismos totales
+    @Modifying
+    @Query(value = "INSERT INTO perfume_sales (perfume_id, sold) " +
+                   "SELECT i.perfume_id, SUM(i.quantity) FROM order_items i JOIN orders o ON o.id = i.order_id " +
+                   "WHERE o.status <> 'CANCELADO' GROUP BY i.perfume_id " +
+                   "ON DUPLICATE KEY UPDATE sold = VALUES(sold)", nativeQuery = true)
+    int backfill();
+}
@@ -1,10 +1,40 @@
 package com.scentalux.repo;
 
 import com.scentalux.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface IUserRepo extends  IGenericRepo<User, Integer>{
     //SELECT * FROM User u WHERE u.username = ?
     // @Query("FROM User u WHERE u.username = :username")
     // DerivedQueries
     User findOneByUsername(String username);
-}
\ No newline at end of file
+
+    // Usuario y roles en una sola consulta (UserDetailsCache)
+    @EntityGraph(attributePaths = "roles")
+    User findWithRolesByUsername(String username);
+
+    // Versión de tokens vigente; -1 si el usuario está deshabilitado (null si no existe)
+    @Query("SELECT CASE WHEN u.enabled = true THEN u.tokenVersion ELSE -1 END FROM User u WHERE u.idUser = :id")
+    Integer findActiveTokenVersion(@Param("id") Integer id);
+
+    // Hash con el coste actual de BCrypt, guardado al hacer login
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.idUser = :id")
+    int updatePassword(@Param("id") Integer id, @Param("password") String password);
+
+    @Modifying
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.idUser = :id")
+    int incrementTokenVersion(@Param("id") Integer id);
+
+    // Todos los usuarios que tienen el rol (renombrado o eliminado); subconsulta correlacionada
+    // porque MySQL no deja leer en un subselect la misma tabla que se actualiza
+    @Modifying
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 " +
+           "WHERE EXISTS (SELECT 1 FROM u.roles r WHERE r.idRole = :roleId)")
+    int incrementTokenVersionByRole(@Param("roleId") Integer roleId);
+}
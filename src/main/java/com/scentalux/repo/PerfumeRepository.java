@@ -1,7 +1,59 @@
 package com.scentalux.repo;
 
+import com.scentalux.dto.PerfumeCatalogRowDTO;
+import com.scentalux.dto.PerfumeNoteRowDTO;
 import com.scentalux.model.Perfume;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface  PerfumeRepository extends IGenericRepo<Perfume, Integer> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
+public interface  PerfumeRepository extends IGenericRepo<Perfume, Integer>, JpaSpecificationExecutor<Perfume> {
+
+    // Catálogo completo con sus notas en una sola consulta (para la caché)
+    @EntityGraph(attributePaths = "notes")
+    List<Perfume> findAllWithNotesBy();
+
+    @EntityGraph(attributePaths = "notes")
+    Optional<Perfume> findWithNotesById(Integer id);
+
+    // Catálogo público como proyección: sin entidades en el contexto de persistencia
+    @Query("SELECT new com.scentalux.dto.PerfumeCatalogRowDTO(p.id, p.name, p.brand, p.price, p.stock, " +
+           "p.imageUrl, p.description, p.category, p.createdAt) " +
+           "FROM Perfume p WHERE p.published = true ORDER BY p.id")
+    List<PerfumeCatalogRowDTO> findPublishedCatalogRows();
+
+    // Todas las notas del catálogo público en una sola consulta, para agruparlas por perfume
+    @Query("SELECT new com.scentalux.dto.PerfumeNoteRowDTO(p.id, n) " +
+           "FROM Perfume p JOIN p.notes n WHERE p.published = true ORDER BY p.id")
+    List<PerfumeNoteRowDTO> findPublishedNotes();
+
+    @EntityGraph(attributePaths = "notes")
+    List<Perfume> findWithNotesByIdIn(Collection<Integer> ids);
+
+    // Novedades: recorre idx_perfumes_pub_created desde el final, solo lee K filas
+    @Query("SELECT p.id FROM Perfume p WHERE p.published = true ORDER BY p.createdAt DESC, p.id DESC")
+    List<Integer> findNewestPublishedIds(Pageable pageable);
+
+    // Descuenta stock de forma atómica; devuelve 0 si no hay stock suficiente
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Perfume p SET p.stock = p.stock - :quantity WHERE p.id = :id AND p.stock >= :quantity")
+    int decrementStock(@Param("id") Integer id, @Param("quantity") int quantity);
+
+    // Aplica un delta neto acumulado por el ledger de reservas; nunca deja el stock en negativo
+    @Modifying
+    @Query("UPDATE Perfume p SET p.stock = CASE WHEN p.stock >= :quantity THEN p.stock - :quantity ELSE 0 END " +
+           "WHERE p.id = :id")
+    int applyStockDelta(@Param("id") Integer id, @Param("quantity") int quantity);
+
+    // Stock disponible = stock en BD - items de pedidos aún no aplicados (una sola lectura consistente)
+    @Query("SELECT p.stock - COALESCE((SELECT SUM(i.quantity) FROM OrderItem i " +
+           "WHERE i.perfume = p AND i.stockApplied = false), 0) FROM Perfume p WHERE p.id = :id")
+    Long findAvailableStock(@Param("id") Integer id);
 }
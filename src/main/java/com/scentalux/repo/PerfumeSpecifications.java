@@ -0,0 +1,39 @@
+package com.scentalux.repo;
+
+import com.scentalux.dto.CatalogFilterDTO;
+import com.scentalux.model.Perfume;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Filtros del catálogo; el orden de los predicados sigue a los índices de perfumes
+public final class PerfumeSpecifications {
+
+    private PerfumeSpecifications() {
+    }
+
+    public static Specification<Perfume> catalog(CatalogFilterDTO filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.isTrue(root.get("published")));
+            if (filter.getCategory() != null) {
+                predicates.add(cb.equal(root.get("category"), filter.getCategory()));
+            }
+            if (filter.getBrand() != null && !filter.getBrand().isBlank()) {
+                predicates.add(cb.equal(root.get("brand"), filter.getBrand().trim()));
+            }
+            if (filter.getMinPrice() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), filter.getMinPrice()));
+            }
+            if (filter.getMaxPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), filter.getMaxPrice()));
+            }
+            if (Boolean.TRUE.equals(filter.getInStock())) {
+                predicates.add(cb.greaterThan(root.get("stock"), 0));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+}
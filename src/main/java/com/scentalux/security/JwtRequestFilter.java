@@ -1,5 +1,6 @@
 package com.scentalux.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,7 +8,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -18,7 +18,7 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class JwtRequestFilter extends OncePerRequestFilter {
     private final JwtTokenUtil jwtTokenUtil;
-    private final JwtUserDetailsService jwtUserDetailsService;
+    private final TokenVersionService tokenVersionService;
 
     @Override
     protected void doFilterInternal(
@@ -28,28 +28,30 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         final String header = request.getHeader("Authorization");
 
-        String username = null;
-        String jwtToken = null;
+        Claims claims = null;
 
         if(header != null && header.startsWith("Bearer ")) {
             //Bearer eyJhbGciOiJIU...
             final int TOKEN_POSITION = 7;
-            jwtToken = header.substring(TOKEN_POSITION);
+            String jwtToken = header.substring(TOKEN_POSITION);
 
             try{
-                username = jwtTokenUtil.getUsernameFromToken(jwtToken);
+                // Una sola verificación por petición (o ninguna si el token ya está en caché)
+                claims = jwtTokenUtil.verify(jwtToken);
             }catch (Exception e) {
                 request.setAttribute("msg", e.getMessage());
             }
         }
 
-        if(username != null && jwtToken != null) {
-            UserDetails userDetails = jwtUserDetailsService.loadUserByUsername(username);
-
-            if(jwtTokenUtil.validateToken(jwtToken, userDetails)) {
-                UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        if(claims != null && claims.getSubject() != null) {
+            // Usuario y roles salen del token ya verificado; solo se comprueba que no esté revocado
+            if(tokenVersionService.isCurrent(claims)) {
+                UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
+                        claims.getSubject(), null, jwtTokenUtil.getAuthorities(claims));
                 auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(auth);
+            } else {
+                request.setAttribute("msg", "TOKEN_REVOKED");
             }
         }
 
@@ -5,5 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 public record JwtResponse(
     @JsonProperty("access_token") String accessToken,
     @JsonProperty("username") String username,
-    @JsonProperty("roles") List<String> roles
-) {}
\ No newline at end of file
+    @JsonProperty("roles") List<String> roles,
+    @JsonProperty("refresh_token") String refreshToken,
+    @JsonProperty("expires_in") long expiresIn
+) {}
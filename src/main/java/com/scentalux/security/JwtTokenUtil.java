@@ -1,17 +1,32 @@
 package com.scentalux.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -19,39 +34,84 @@ import java.util.stream.Collectors;
 //Clase S1
 @Component
 public class JwtTokenUtil implements Serializable {
-    
 
-    private static final long JWT_TOKEN_VALIDITY = 5L * 60 * 60 * 1000; 
 
-    @Value("${jwt.secret}") 
-    private String secret;
+    private static final String ROLE_CLAIM = "role";
+
+    // Clave y parser se derivan una sola vez a partir de jwt.secret
+    private final transient SecretKey key;
+    private final transient JwtParser parser;
+
+    // Claims ya verificados por hash SHA-256 del token; cada entrada caduca con el exp del token
+    private final transient Cache<String, Claims> verified;
+
+    // Vida corta: al caducar se renueva con el refresh token (RefreshTokenService)
+    private final Duration accessTokenTtl;
+
+    public JwtTokenUtil(@Value("${jwt.secret}") String secret,
+                        @Value("${scentalux.jwt.access-token-ttl:PT15M}") Duration accessTokenTtl,
+                        @Value("${scentalux.jwt.cache.max-size:10000}") long cacheSize,
+                        MeterRegistry meterRegistry) {
+        this.accessTokenTtl = accessTokenTtl;
+        this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(Expiry.creating((String hash, Claims claims) ->
+                        Duration.between(Instant.now(), claims.getExpiration().toInstant())))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "jwt.verified");
+    }
 
     //Agregar data al Payload/Claims
-    public String generateToken(UserDetails userDetails) {
+    public String generateToken(UserDetails userDetails, Integer userId, int tokenVersion) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("role", userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.joining(","))); //ADMIN,DBA,USER
+        claims.put(ROLE_CLAIM, userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.joining(","))); //ADMIN,DBA,USER
         claims.put("test", "mitocode-test-value");
+        // Para revocar sin consultar el usuario en cada petición (TokenVersionService)
+        claims.put(TokenVersionService.USER_ID_CLAIM, userId);
+        claims.put(TokenVersionService.VERSION_CLAIM, tokenVersion);
 
         return doGenerateToken(claims, userDetails.getUsername());
     }
 
     private String doGenerateToken(Map<String, Object> claims, String username) {
-        SecretKey key = Keys.hmacShaKeyFor(this.secret.getBytes());
-
         return Jwts.builder()
                 .claims(claims)
                 .subject(username)
                 .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + JWT_TOKEN_VALIDITY))
+                .expiration(new Date(System.currentTimeMillis() + accessTokenTtl.toMillis()))
                 .signWith(key)
                 .compact();
     }
 
+    // Para el expires_in de la respuesta
+    public long getAccessTokenTtlSeconds() {
+        return accessTokenTtl.toSeconds();
+    }
+
+    /**
+     * Verifica firma y caducidad una sola vez por token: las siguientes peticiones
+     * con el mismo token solo calculan su hash y lo buscan en la caché.
+     * Lanza {@link io.jsonwebtoken.JwtException} si el token no es válido.
+     */
+    public Claims verify(String token) {
+        String hash = sha256Hex(token);
+        Claims claims = verified.getIfPresent(hash);
+        if (claims == null) {
+            claims = parser.parseSignedClaims(token).getPayload();
+            // Sin exp no se sabe hasta cuándo vale: no se cachea
+            if (claims.getExpiration() != null) {
+                verified.put(hash, claims);
+            }
+        }
+        return claims;
+    }
+
     //utils
     public Claims getAllClaimsFromToken(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(this.secret.getBytes());
-
-        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+        return verify(token);
     }
 
     public <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver){
@@ -67,15 +127,44 @@ public class JwtTokenUtil implements Serializable {
         return getClaimFromToken(token, Claims::getExpiration);
     }
 
-    private boolean isTokenExpired(String token){
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+    // Roles del claim "role" (ADMIN,DBA,USER), tal como estaban al emitir el token
+    public List<GrantedAuthority> getAuthorities(Claims claims) {
+        String roles = claims.get(ROLE_CLAIM, String.class);
+        if (roles == null || roles.isBlank()) {
+            return List.of();
+        }
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (String role : roles.split(",")) {
+            if (!role.isBlank()) {
+                authorities.add(new SimpleGrantedAuthority(role.strip()));
+            }
+        }
+        return authorities;
+    }
+
+    private static boolean isTokenExpired(Claims claims){
+        final Date expiration = claims.getExpiration();
+        return expiration != null && expiration.before(new Date());
     }
 
     public boolean validateToken(String token, UserDetails userDetails){
-        final String username = getUsernameFromToken(token);
-        return (username.equalsIgnoreCase(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateToken(getAllClaimsFromToken(token), userDetails);
     }
 
+    // Sobre claims ya verificados: no vuelve a parsear el token
+    public boolean validateToken(Claims claims, UserDetails userDetails){
+        final String username = claims.getSubject();
+        return (username.equalsIgnoreCase(userDetails.getUsername()) && !isTokenExpired(claims));
+    }
+
+    // También para guardar los refresh tokens sin el valor original
+    static String sha256Hex(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
-}
\ No newline at end of file
+}
@@ -1,37 +1,33 @@
 package com.scentalux.security;
 
-import com.scentalux.model.User;
 import com.scentalux.repo.IUserRepo;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.List;
-
 //Clase S4
 @Service
 @RequiredArgsConstructor
-public class JwtUserDetailsService implements UserDetailsService {
+public class JwtUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+    private final UserDetailsCache userDetailsCache;
     private final IUserRepo repo;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = repo.findOneByUsername(username);
-
-        if(user == null) {
-            throw new UsernameNotFoundException("Username not found: " + username);
-        }
-
-        List<GrantedAuthority> roles = new ArrayList<>();
-        user.getRoles().forEach(rol -> {
-            roles.add(new SimpleGrantedAuthority(rol.getName()));
-        });
+        return userDetailsCache.get(username).toUserDetails();
+    }
 
-        return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(), roles);
+    // Lo llama la autenticación cuando el hash guardado tiene un coste menor que el configurado
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        Integer userId = userDetailsCache.get(user.getUsername()).id();
+        repo.updatePassword(userId, newPassword);
+        userDetailsCache.evict(userId);
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
+                .build();
     }
 }
@@ -0,0 +1,15 @@
+package com.scentalux.security;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RefreshRequest {
+
+    @JsonProperty("refresh_token")
+    private String refreshToken;
+}
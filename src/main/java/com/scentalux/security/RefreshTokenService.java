@@ -0,0 +1,129 @@
+package com.scentalux.security;
+
+import com.scentalux.exception.InvalidRefreshTokenException;
+import com.scentalux.model.RefreshToken;
+import com.scentalux.repo.IRefreshTokenRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Refresh tokens opacos para renovar el access token sin volver a pasar por BCrypt.
+ *
+ * El cliente recibe 32 bytes aleatorios; en {@code refresh_tokens} solo se guarda
+ * su SHA-256, así que renovar es una búsqueda por índice único. Cada renovación
+ * consume el token y emite otro de la misma familia (rotación), que conserva la
+ * caducidad de la sesión original. Presentar un token ya consumido indica que se
+ * ha filtrado: se revoca toda su familia y el usuario tendrá que volver a entrar.
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    // Usuario con el que emitir el nuevo access token y el refresh token que sustituye al usado
+    public record Rotation(UserDetailsCache.CachedUser user, String refreshToken) {
+    }
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final String INVALID = "INVALID_REFRESH_TOKEN";
+
+    private final IRefreshTokenRepo repo;
+    private final UserDetailsCache userDetailsCache;
+    private final TransactionTemplate tx;
+    private final Duration ttl;
+    private final Counter reused;
+
+    public RefreshTokenService(IRefreshTokenRepo repo,
+                               UserDetailsCache userDetailsCache,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${scentalux.jwt.refresh-token-ttl:P14D}") Duration ttl) {
+        this.repo = repo;
+        this.userDetailsCache = userDetailsCache;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.reused = Counter.builder("auth.refresh.reused")
+                .description("Refresh tokens presented again after rotation (family revoked)")
+                .register(meterRegistry);
+    }
+
+    /** Abre una familia nueva (login). */
+    public String issue(UserDetailsCache.CachedUser user) {
+        return save(user.id(), user.username(), UUID.randomUUID().toString(), LocalDateTime.now().plus(ttl));
+    }
+
+    public Rotation rotate(String refreshToken) {
+        RefreshToken stored = refreshToken == null || refreshToken.isBlank()
+                ? null : repo.findByTokenHash(JwtTokenUtil.sha256Hex(refreshToken));
+        LocalDateTime now = LocalDateTime.now();
+        if (stored == null) {
+            throw new InvalidRefreshTokenException(INVALID);
+        }
+        if (stored.getUsedAt() != null) {
+            throw reuseDetected(stored);
+        }
+        if (stored.isRevoked() || stored.getExpiresAt().isBefore(now)) {
+            throw new InvalidRefreshTokenException(INVALID);
+        }
+
+        UserDetailsCache.CachedUser user;
+        try {
+            user = userDetailsCache.get(stored.getUsername());
+        } catch (UsernameNotFoundException e) {
+            user = null;
+        }
+        if (user == null || !user.enabled() || !user.id().equals(stored.getUserId())) {
+            repo.revokeFamily(stored.getFamilyId());
+            throw new InvalidRefreshTokenException(INVALID);
+        }
+
+        String next = tx.execute(status -> {
+            if (repo.markUsed(stored.getId(), now) == 0) {
+                return null; // otra petición lo rotó primero
+            }
+            return save(stored.getUserId(), stored.getUsername(), stored.getFamilyId(), stored.getExpiresAt());
+        });
+        if (next == null) {
+            throw reuseDetected(stored);
+        }
+        return new Rotation(user, next);
+    }
+
+    /** Cierra todas las sesiones del usuario (contraseña cambiada, deshabilitado o borrado). */
+    public void revokeAll(Integer userId) {
+        repo.revokeByUserId(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${scentalux.jwt.refresh-token-purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int deleted = repo.deleteExpired(LocalDateTime.now());
+        log.debug("Purged {} expired refresh tokens", deleted);
+    }
+
+    private InvalidRefreshTokenException reuseDetected(RefreshToken stored) {
+        repo.revokeFamily(stored.getFamilyId());
+        reused.increment();
+        log.warn("Refresh token reuse detected for user {}: family {} revoked", stored.getUserId(), stored.getFamilyId());
+        return new InvalidRefreshTokenException("REFRESH_TOKEN_REUSED");
+    }
+
+    private String save(Integer userId, String username, String familyId, LocalDateTime expiresAt) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        repo.save(new RefreshToken(null, JwtTokenUtil.sha256Hex(token), familyId, userId, username, expiresAt, null, false));
+        return token;
+    }
+}
@@ -0,0 +1,82 @@
+package com.scentalux.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.scentalux.repo.IUserRepo;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * Revocación de tokens sin consultar la base de datos en cada petición.
+ *
+ * Cada token lleva el id del usuario ({@code uid}) y la versión de tokens que
+ * tenía al emitirse ({@code ver}). Aquí se guarda la versión vigente por usuario
+ * (-1 si está deshabilitado o no existe): cambiar roles, {@code enabled} o la
+ * contraseña sube la versión en la base de datos y descarta la entrada, así los
+ * tokens anteriores dejan de valer. El TTL acota cuánto tarda en verse un cambio
+ * hecho desde otra instancia.
+ */
+@Service
+public class TokenVersionService {
+
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String VERSION_CLAIM = "ver";
+
+    private static final int INACTIVE = -1;
+
+    private final IUserRepo userRepo;
+    private final TransactionTemplate tx;
+    private final Cache<Integer, Integer> versions;
+
+    public TokenVersionService(IUserRepo userRepo,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${scentalux.jwt.token-versions.max-size:10000}") long maxSize,
+                               @Value("${scentalux.jwt.token-versions.ttl:PT5M}") Duration ttl) {
+        this.userRepo = userRepo;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "jwt.tokenVersions");
+    }
+
+    /** El token se emitió con la versión vigente de un usuario habilitado. */
+    public boolean isCurrent(Claims claims) {
+        Integer userId = claims.get(USER_ID_CLAIM, Integer.class);
+        Integer version = claims.get(VERSION_CLAIM, Integer.class);
+        if (userId == null || version == null) {
+            return false; // emitido antes de versionar los tokens
+        }
+        return version == currentVersion(userId);
+    }
+
+    public int currentVersion(Integer userId) {
+        return versions.get(userId, id -> {
+            Integer version = userRepo.findActiveTokenVersion(id);
+            return version != null ? version : INACTIVE;
+        });
+    }
+
+    /** Revoca los tokens del usuario; llamar después de guardar (o borrar) sus cambios. */
+    public void revoke(Integer userId) {
+        tx.executeWithoutResult(status -> userRepo.incrementTokenVersion(userId));
+        // Después del commit: una carga concurrente ya no puede volver a cachear la versión anterior
+        versions.invalidate(userId);
+    }
+
+    /** Revoca los tokens de todos los usuarios con el rol. */
+    public void revokeRole(Integer roleId) {
+        tx.executeWithoutResult(status -> userRepo.incrementTokenVersionByRole(roleId));
+        versions.invalidateAll();
+    }
+}
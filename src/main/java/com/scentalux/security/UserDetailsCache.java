@@ -0,0 +1,97 @@
+package com.scentalux.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.scentalux.model.Role;
+import com.scentalux.model.User;
+import com.scentalux.repo.IUserRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copia inmutable de los datos de seguridad de cada usuario, por username.
+ *
+ * El login la necesita tres veces (autenticar, emitir el token y responder con
+ * los roles) y así solo consulta la base de datos una. Acotada por tamaño y TTL;
+ * los controladores que cambian usuarios o roles invalidan las entradas afectadas.
+ * Cada invalidación incrementa {@code generation} y lo cargado durante una
+ * generación anterior se descarta: puede ser anterior al commit (contraseña,
+ * roles o {@code enabled} ya cambiados).
+ * Métricas en {@code cache.gets} con {@code cache=users.details}.
+ */
+@Component
+public class UserDetailsCache {
+
+    public record CachedUser(Integer id, String username, String password, boolean enabled,
+                             int tokenVersion, List<String> roles) {
+
+        public UserDetails toUserDetails() {
+            return org.springframework.security.core.userdetails.User.withUsername(username)
+                    .password(password)
+                    .disabled(!enabled)
+                    .authorities(roles.stream().map(SimpleGrantedAuthority::new).toList())
+                    .build();
+        }
+    }
+
+    private final IUserRepo repo;
+    private final Cache<String, CachedUser> users;
+    private final AtomicLong generation = new AtomicLong();
+
+    public UserDetailsCache(IUserRepo repo,
+                            MeterRegistry meterRegistry,
+                            @Value("${scentalux.users.cache.max-size:10000}") long maxSize,
+                            @Value("${scentalux.users.cache.ttl:PT5M}") Duration ttl) {
+        this.repo = repo;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users.details");
+    }
+
+    public CachedUser get(String username) {
+        // Los usuarios que no existen no se cachean
+        long seen = generation.get();
+        CachedUser user = users.get(username, key -> {
+            User entity = repo.findWithRolesByUsername(key);
+            return entity != null ? snapshot(entity) : null;
+        });
+        if (user == null) {
+            throw new UsernameNotFoundException("Username not found: " + username);
+        }
+        if (generation.get() != seen) {
+            // Hubo una invalidación mientras se cargaba: lo insertado puede ser anterior al commit
+            users.asMap().remove(username, user);
+        }
+        return user;
+    }
+
+    // Por id: la entrada puede estar bajo el username anterior o con otras mayúsculas
+    public void evict(Integer userId) {
+        generation.incrementAndGet();
+        users.asMap().values().removeIf(user -> user.id().equals(userId));
+    }
+
+    // Un rol renombrado o borrado cambia los roles de usuarios que no conocemos
+    public void evictAll() {
+        generation.incrementAndGet();
+        users.invalidateAll();
+    }
+
+    private static CachedUser snapshot(User user) {
+        return new CachedUser(user.getIdUser(), user.getUsername(), user.getPassword(),
+                Boolean.TRUE.equals(user.getEnabled()), user.getTokenVersion(),
+                user.getRoles().stream().map(Role::getName).toList());
+    }
+}
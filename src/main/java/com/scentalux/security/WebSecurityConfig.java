@@ -1,9 +1,12 @@
 package com.scentalux.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -17,6 +20,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.time.Duration;
+
 
 //Clase S7
 @Configuration
@@ -34,14 +39,20 @@ public class WebSecurityConfig {
         return authenticationConfiguration.getAuthenticationManager();
     }
 
+    // BCrypt en un pool acotado; los hashes con menos coste se actualizan al hacer login
     @Bean
-    public static PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+    public static PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                                  @Value("${scentalux.password.bcrypt-strength:12}") int strength,
+                                                  @Value("${scentalux.password.hashing.threads:0}") int threads,
+                                                  @Value("${scentalux.password.hashing.queue-capacity:64}") int queueCapacity,
+                                                  @Value("${scentalux.password.hashing.retry-after:PT1S}") Duration retryAfter){
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), threads, queueCapacity, retryAfter, meterRegistry);
     }
 
     @Autowired
-    public void configureGlobal(AuthenticationManagerBuilder auth) throws Exception {
-        auth.userDetailsService(jwtUserDetailsService).passwordEncoder(passwordEncoder());
+    public void configureGlobal(AuthenticationManagerBuilder auth, PasswordEncoder passwordEncoder) throws Exception {
+        // JwtUserDetailsService también es UserDetailsPasswordService: guarda el hash actualizado
+        auth.userDetailsService(jwtUserDetailsService).passwordEncoder(passwordEncoder);
     }
 
     @Bean
@@ -51,15 +62,23 @@ public class WebSecurityConfig {
                 //.csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(req -> req
                         .requestMatchers(("/login")).permitAll()
+                        .requestMatchers(("/token/refresh")).permitAll()
                         .requestMatchers(("/roles/**")).permitAll()
                         .requestMatchers(("/usuarios/**")).permitAll()
                         .requestMatchers(("/mail/**")).permitAll()
+                        // Antes que /perfumes/**: incluye no publicados y escribe en bloque
+                        .requestMatchers(("/perfumes/admin")).hasAuthority("ADMIN")
+                        .requestMatchers(("/perfumes/import")).hasAuthority("ADMIN")
                         .requestMatchers(("/perfumes/**")).permitAll()
                         .requestMatchers(("/api/upload/**")).permitAll()  // ✅ PERMITE SUBIR ARCHIVOS
                         .requestMatchers(("/uploads/**")).permitAll()      // ✅ PERMITE ACCEDER A IMÁGENES
                         // 🔥 NUEVAS RUTAS PARA ORDERS
                         .requestMatchers(("/orders/my-orders")).authenticated()
                         .requestMatchers(("/orders")).authenticated()
+                        // Antes que /orders/**: vuelca los pedidos de todos los clientes
+                        .requestMatchers(("/orders/export")).hasAuthority("ADMIN")
+                        .requestMatchers(HttpMethod.PUT, "/orders/status").hasAuthority("ADMIN")  // cambio masivo
+                        .requestMatchers(("/orders/stats")).hasAuthority("ADMIN")
                         .requestMatchers(("/orders/**")).authenticated()
                         .anyRequest().authenticated()   
                 )
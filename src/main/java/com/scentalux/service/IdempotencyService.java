@@ -0,0 +1,12 @@
+package com.scentalux.service;
+
+import com.scentalux.dto.OrderDTO;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+    // Ejecuta la acción una sola vez por (usuario, clave); los reintentos con el mismo cuerpo
+    // reciben la misma respuesta y con otro cuerpo fallan con IdempotencyKeyReuseException
+    OrderDTO executeOnce(String username, String key, Object request, Supplier<OrderDTO> action);
+}
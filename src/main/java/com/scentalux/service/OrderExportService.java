@@ -0,0 +1,18 @@
+package com.scentalux.service;
+
+import com.scentalux.exception.OrderValidationException;
+import com.scentalux.model.OrderStatus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+public interface OrderExportService {
+
+    String FORMAT_NDJSON = "ndjson";
+    String FORMAT_CSV = "csv";
+
+    // Escribe los pedidos (con sus items) en el stream a medida que se leen de la BD
+    void exportOrders(String format, OrderStatus status, LocalDateTime from, LocalDateTime to,
+                      OutputStream out) throws IOException, OrderValidationException;
+}
@@ -0,0 +1,7 @@
+package com.scentalux.service;
+
+public interface OrderNumberGenerator {
+
+    // Número de pedido único y creciente, con prefijo "ORD"
+    String nextOrderNumber();
+}
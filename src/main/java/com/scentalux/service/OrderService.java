@@ -1,23 +1,39 @@
 package com.scentalux.service;
 
+import com.scentalux.dto.BulkStatusResultDTO;
+import com.scentalux.dto.BulkStatusUpdateDTO;
 import com.scentalux.dto.CreateOrderDTO;
+import com.scentalux.dto.CursorPageDTO;
 import com.scentalux.dto.OrderDTO;
+import com.scentalux.dto.OrderSummaryDTO;
 import com.scentalux.model.Order;
+import com.scentalux.model.OrderStatus;
 import com.scentalux.exception.OrderNotFoundException;
 import com.scentalux.exception.OrderValidationException;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 public interface OrderService extends GenericService<Order, Integer> {
 
    
     OrderDTO createOrder(CreateOrderDTO orderDTO, String username) throws OrderValidationException;
 
-    List<OrderDTO> getUserOrders(String username) throws OrderNotFoundException;
+    CursorPageDTO<OrderSummaryDTO> getUserOrderSummaries(String username, String cursor, int size)
+            throws OrderValidationException;
 
     OrderDTO getOrderByNumber(String orderNumber) throws OrderNotFoundException;
 
     OrderDTO updateOrderStatus(Integer orderId, String status) throws OrderValidationException;
 
+    List<BulkStatusResultDTO> bulkUpdateStatus(BulkStatusUpdateDTO request) throws OrderValidationException;
+
     OrderDTO uploadReceipt(Integer orderId, String receiptImageUrl) throws OrderValidationException;
+
+    CursorPageDTO<OrderDTO> findOrdersPage(String cursor, int size, String status,
+                                           LocalDateTime from, LocalDateTime to) throws OrderValidationException;
+
+    // Pedidos por estado (contadores en memoria, sin consultar la BD)
+    Map<OrderStatus, Long> countByStatus();
 }
@@ -0,0 +1,15 @@
+package com.scentalux.service;
+
+import com.scentalux.dto.ImportResultDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface PerfumeImportService {
+
+    String FORMAT_JSON = "json";
+    String FORMAT_CSV = "csv";
+
+    // Lee los perfumes del stream a medida que llegan y los inserta/actualiza por (marca, nombre)
+    ImportResultDTO importPerfumes(String format, InputStream in) throws IOException;
+}
@@ -1,9 +1,36 @@
 package com.scentalux.service;
 
+import com.scentalux.dto.CatalogFilterDTO;
+import com.scentalux.dto.PageDTO;
+import com.scentalux.dto.PerfumeDTO;
 import com.scentalux.model.Perfume;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+
 public interface PerfumeService extends GenericService<Perfume, Integer> {
     Page<Perfume> listPage(Pageable pageable);
+
+    // Catálogo público paginado (solo perfumes publicados)
+    PageDTO<PerfumeDTO> searchCatalog(CatalogFilterDTO filter, int page, int size, String sort, String direction);
+
+    // Búsqueda de texto sobre el índice en memoria
+    PageDTO<PerfumeDTO> search(String query, int page, int size);
+
+    // Filtro por notas: todas las de allNotes y al menos una de anyNotes
+    PageDTO<PerfumeDTO> findByNotes(List<String> allNotes, List<String> anyNotes, int page, int size);
+
+    // Lecturas del catálogo servidas desde caché
+    List<PerfumeDTO> listCatalog();
+
+    // Solo publicados, leídos como proyecciones (sin caché: lo usan las instantáneas del catálogo)
+    List<PerfumeDTO> listPublishedCatalog();
+
+    PerfumeDTO findCatalogEntry(Integer id);
+
+    // Varias entradas a la vez (las que no existen se omiten)
+    List<PerfumeDTO> findCatalogEntries(List<Integer> ids);
+
+    int decrementStock(Integer id, int quantity);
 }
@@ -0,0 +1,340 @@
+package com.scentalux.service.impl;
+
+import com.scentalux.dto.CatalogFilterDTO;
+import com.scentalux.dto.FacetsDTO;
+import com.scentalux.dto.PerfumeDTO;
+import com.scentalux.event.PerfumeChangedEvent;
+import com.scentalux.mapper.PerfumeMapper;
+import com.scentalux.service.PerfumeService;
+import com.scentalux.util.TextNormalizer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Copia columnar del catálogo publicado para calcular facetas en memoria.
+ *
+ * Precio y stock van en arrays primitivos; marca, categoría y notas se
+ * codifican con diccionarios (solo crecen, así los códigos de las filas que no
+ * cambian siguen siendo válidos) y cada nota tiene un bitset de filas. Los
+ * cambios se aplican en segundo plano re-codificando solo los perfumes
+ * afectados; los lectores usan la copia anterior hasta el reemplazo atómico.
+ * Los cambios de otra instancia se recogen en {@link #refresh()}, que relee el
+ * catálogo publicado y solo reconstruye si su contenido cambió.
+ */
+@Slf4j
+@Component
+public class CatalogColumns {
+
+    // Límites de los tramos de precio: [0,100), [100,200), [200,300), [300,500), [500,∞)
+    private static final double[] PRICE_BOUNDS = {100, 200, 300, 500};
+
+    private final PerfumeService perfumeService;
+    private final AtomicReference<Columns> current = new AtomicReference<>(Columns.empty());
+    private final ConcurrentLinkedQueue<PerfumeChangedEvent> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    // Eventos recibidos: un refresco que leyó antes de uno de ellos no sustituye las columnas
+    private final AtomicLong changes = new AtomicLong();
+    private volatile int contentHash;
+    private final ExecutorService updater = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-columns");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CatalogColumns(PerfumeService perfumeService) {
+        this.perfumeService = perfumeService;
+    }
+
+    // Diccionario valor ↔ código; se copia antes de añadir valores nuevos
+    private record Dictionary(Map<String, Integer> codes, List<String> values) {
+
+        static Dictionary empty() {
+            return new Dictionary(new HashMap<>(), new ArrayList<>());
+        }
+
+        Dictionary copy() {
+            return new Dictionary(new HashMap<>(codes), new ArrayList<>(values));
+        }
+
+        int encode(String key, String display) {
+            Integer code = codes.get(key);
+            if (code == null) {
+                code = values.size();
+                codes.put(key, code);
+                values.add(display);
+            }
+            return code;
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+
+    private record Columns(int[] ids, double[] prices, int[] stocks, int[] brands, int[] categories, int[][] notes,
+                           Dictionary brandDict, Dictionary categoryDict, Dictionary noteDict, BitSet[] rowsByNote) {
+
+        static Columns empty() {
+            return new Columns(new int[0], new double[0], new int[0], new int[0], new int[0], new int[0][],
+                    Dictionary.empty(), Dictionary.empty(), Dictionary.empty(), new BitSet[0]);
+        }
+
+        int size() {
+            return ids.length;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        List<PerfumeDTO> catalog = perfumeService.listPublishedCatalog();
+        Columns columns = patch(Columns.empty(), Set.of(), catalog);
+        current.set(columns);
+        contentHash = catalog.hashCode();
+        log.info("Catalog columns built: {} published perfumes", columns.size());
+    }
+
+    @Scheduled(fixedDelayString = "${scentalux.catalog.refresh-interval-ms:60000}",
+            initialDelayString = "${scentalux.catalog.refresh-interval-ms:60000}")
+    public void refresh() {
+        long seen = changes.get();
+        List<PerfumeDTO> catalog = perfumeService.listPublishedCatalog();
+        int hash = catalog.hashCode();
+        if (hash == contentHash) {
+            return;
+        }
+        Columns columns = patch(Columns.empty(), Set.of(), catalog);
+        synchronized (this) {
+            // Un evento posterior a la lectura ya se aplica (o aplicará) con datos más nuevos
+            if (changes.get() != seen) {
+                return;
+            }
+            current.set(columns);
+            contentHash = hash;
+        }
+        log.debug("Catalog columns refreshed: {} published perfumes", columns.size());
+    }
+
+    // Después de invalidar la caché del catálogo, para leer los perfumes ya actualizados
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPerfumeChanged(PerfumeChangedEvent event) {
+        changes.incrementAndGet();
+        pending.add(event);
+        if (drainScheduled.compareAndSet(false, true)) {
+            updater.execute(this::drain);
+        }
+    }
+
+    public FacetsDTO facets(CatalogFilterDTO filter) {
+        Columns c = current.get();
+        int brand = filter.getBrand() != null && !filter.getBrand().isBlank()
+                ? lookup(c.brandDict(), filter.getBrand().trim().toLowerCase()) : -1;
+        int category = filter.getCategory() != null ? lookup(c.categoryDict(), filter.getCategory()) : -1;
+        double minPrice = filter.getMinPrice() != null ? filter.getMinPrice() : Double.NEGATIVE_INFINITY;
+        double maxPrice = filter.getMaxPrice() != null ? filter.getMaxPrice() : Double.POSITIVE_INFINITY;
+        boolean inStock = Boolean.TRUE.equals(filter.getInStock());
+
+        long[] brandCounts = new long[c.brandDict().size()];
+        long[] categoryCounts = new long[c.categoryDict().size()];
+        long[] priceCounts = new long[PRICE_BOUNDS.length + 1];
+        BitSet matched = new BitSet(c.size());
+
+        // Una pasada: cada faceta cuenta con todos los filtros salvo el suyo
+        for (int row = 0; row < c.size(); row++) {
+            if (inStock && c.stocks()[row] <= 0) {
+                continue;
+            }
+            boolean brandOk = brand == -1 || c.brands()[row] == brand;
+            boolean categoryOk = category == -1 || c.categories()[row] == category;
+            double price = c.prices()[row];
+            boolean priceOk = price >= minPrice && price <= maxPrice;
+
+            if (categoryOk && priceOk) {
+                brandCounts[c.brands()[row]]++;
+            }
+            if (brandOk && priceOk) {
+                categoryCounts[c.categories()[row]]++;
+            }
+            if (brandOk && categoryOk) {
+                priceCounts[bucket(price)]++;
+            }
+            if (brandOk && categoryOk && priceOk) {
+                matched.set(row);
+            }
+        }
+
+        long[] noteCounts = new long[c.noteDict().size()];
+        BitSet scratch = new BitSet(c.size());
+        for (int note = 0; note < noteCounts.length; note++) {
+            scratch.clear();
+            scratch.or(c.rowsByNote()[note]);
+            scratch.and(matched);
+            noteCounts[note] = scratch.cardinality();
+        }
+
+        List<FacetsDTO.PriceBucketDTO> prices = new ArrayList<>(priceCounts.length);
+        for (int i = 0; i < priceCounts.length; i++) {
+            double min = i == 0 ? 0 : PRICE_BOUNDS[i - 1];
+            Double max = i < PRICE_BOUNDS.length ? PRICE_BOUNDS[i] : null;
+            prices.add(new FacetsDTO.PriceBucketDTO(min, max, priceCounts[i]));
+        }
+        return new FacetsDTO(matched.cardinality(),
+                counts(c.brandDict(), brandCounts),
+                counts(c.categoryDict(), categoryCounts),
+                counts(c.noteDict(), noteCounts),
+                prices);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        updater.shutdownNow();
+    }
+
+    // Agrupa los eventos acumulados y aplica un único parche
+    private void drain() {
+        drainScheduled.set(false);
+        Set<Integer> changed = new HashSet<>();
+        PerfumeChangedEvent event;
+        while ((event = pending.poll()) != null) {
+            changed.addAll(event.perfumeIds());
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        try {
+            // Los borrados no vuelven: basta con quitar su fila
+            List<PerfumeDTO> upserts = perfumeService.findCatalogEntries(List.copyOf(changed));
+            synchronized (this) {
+                current.set(patch(current.get(), changed, upserts));
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not update catalog columns for {}", changed, e);
+        }
+    }
+
+    /**
+     * Copia las filas que no cambian (sus códigos siguen valiendo) y codifica
+     * solo los perfumes nuevos o modificados.
+     */
+    private static Columns patch(Columns base, Collection<Integer> changed, List<PerfumeDTO> upserts) {
+        Set<Integer> removed = new HashSet<>(changed);
+        List<PerfumeDTO> published = upserts.stream().filter(PerfumeDTO::isPublished).toList();
+        published.forEach(dto -> removed.add(Integer.valueOf(dto.getId())));
+
+        int kept = 0;
+        for (int id : base.ids()) {
+            if (!removed.contains(id)) {
+                kept++;
+            }
+        }
+        int size = kept + published.size();
+        int[] ids = new int[size];
+        double[] prices = new double[size];
+        int[] stocks = new int[size];
+        int[] brands = new int[size];
+        int[] categories = new int[size];
+        int[][] notes = new int[size][];
+
+        int row = 0;
+        for (int old = 0; old < base.size(); old++) {
+            if (removed.contains(base.ids()[old])) {
+                continue;
+            }
+            ids[row] = base.ids()[old];
+            prices[row] = base.prices()[old];
+            stocks[row] = base.stocks()[old];
+            brands[row] = base.brands()[old];
+            categories[row] = base.categories()[old];
+            notes[row] = base.notes()[old];
+            row++;
+        }
+
+        Dictionary brandDict = base.brandDict().copy();
+        Dictionary categoryDict = base.categoryDict().copy();
+        Dictionary noteDict = base.noteDict().copy();
+        for (PerfumeDTO dto : published) {
+            ids[row] = Integer.parseInt(dto.getId());
+            prices[row] = dto.getPrice() != null ? dto.getPrice() : 0;
+            stocks[row] = dto.getStock() != null ? dto.getStock() : 0;
+            String brand = dto.getBrand() != null ? dto.getBrand().trim() : "";
+            brands[row] = brandDict.encode(brand.toLowerCase(), brand);
+            String category = PerfumeMapper.mapCategoryToBackend(dto.getCategory());
+            categories[row] = categoryDict.encode(category, category);
+            Set<Integer> noteCodes = new HashSet<>();
+            if (dto.getNotes() != null) {
+                for (String note : dto.getNotes()) {
+                    String folded = TextNormalizer.fold(note);
+                    if (!folded.isEmpty()) {
+                        noteCodes.add(noteDict.encode(folded, note.trim()));
+                    }
+                }
+            }
+            notes[row] = noteCodes.stream().mapToInt(Integer::intValue).toArray();
+            row++;
+        }
+
+        BitSet[] rowsByNote = new BitSet[noteDict.size()];
+        for (int note = 0; note < rowsByNote.length; note++) {
+            rowsByNote[note] = new BitSet(size);
+        }
+        for (int r = 0; r < size; r++) {
+            for (int note : notes[r]) {
+                rowsByNote[note].set(r);
+            }
+        }
+        return new Columns(ids, prices, stocks, brands, categories, notes, brandDict, categoryDict, noteDict, rowsByNote);
+    }
+
+    // Código del valor o -2 (no existe: ninguna fila coincide)
+    private static int lookup(Dictionary dictionary, String key) {
+        Integer code = dictionary.codes().get(key);
+        return code != null ? code : -2;
+    }
+
+    private static int bucket(double price) {
+        int bucket = 0;
+        while (bucket < PRICE_BOUNDS.length && price >= PRICE_BOUNDS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    // Valores con al menos un perfume, de más a menos frecuentes
+    private static Map<String, Long> counts(Dictionary dictionary, long[] counts) {
+        List<Integer> codes = new ArrayList<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                codes.add(code);
+            }
+        }
+        codes.sort((a, b) -> Long.compare(counts[b], counts[a]));
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int code : codes) {
+            result.put(dictionary.values().get(code), counts[code]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,138 @@
+package com.scentalux.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scentalux.dto.PerfumeDTO;
+import com.scentalux.event.PerfumeChangedEvent;
+import com.scentalux.service.PerfumeService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Catálogo publicado ya serializado a JSON y comprimido con gzip.
+ *
+ * {@code GET /perfumes} escribe estos bytes tal cual, sin mapear ni serializar.
+ * Cada cambio en perfumes programa una reconstrucción en segundo plano (varios
+ * cambios seguidos se agrupan en una); mientras tanto los lectores siguen con la
+ * instantánea anterior, que se reemplaza de forma atómica. El ETag es el hash
+ * del JSON, así que siempre corresponde exactamente al cuerpo que acompaña.
+ * Los cambios hechos en otra instancia no llegan como evento: además se
+ * reconstruye periódicamente, y si el hash no cambia se conserva la anterior.
+ */
+@Slf4j
+@Component
+public class CatalogSnapshot {
+
+    // ETag fuerte distinto por codificación (mismo contenido, bytes diferentes)
+    public record Snapshot(byte[] json, byte[] gzip, String etag, String gzipEtag) {
+    }
+
+    private final PerfumeService perfumeService;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CatalogSnapshot(PerfumeService perfumeService, ObjectMapper objectMapper) {
+        this.perfumeService = perfumeService;
+        this.objectMapper = objectMapper;
+    }
+
+    public Snapshot current() {
+        Snapshot snapshot = current.get();
+        if (snapshot == null) {
+            // Primera petición antes de que termine el arranque
+            rebuild();
+            snapshot = current.get();
+        }
+        return snapshot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    // Después de invalidar la caché del catálogo, para no reconstruir con datos viejos
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPerfumeChanged(PerfumeChangedEvent event) {
+        if (rebuildPending.compareAndSet(false, true)) {
+            builder.execute(() -> {
+                rebuildPending.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("Could not rebuild catalog snapshot", e);
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${scentalux.catalog.refresh-interval-ms:60000}",
+            initialDelayString = "${scentalux.catalog.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Could not refresh catalog snapshot", e);
+        }
+    }
+
+    synchronized void rebuild() {
+        List<PerfumeDTO> published = perfumeService.listPublishedCatalog();
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(published);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize catalog snapshot", e);
+        }
+        String hash = DigestUtils.md5DigestAsHex(json);
+        String etag = "\"" + hash + "\"";
+
+        Snapshot previous = current.get();
+        if (previous != null && previous.etag().equals(etag)) {
+            return; // p. ej. cambió solo un perfume no publicado
+        }
+        current.set(new Snapshot(json, gzip(json), etag, "\"" + hash + "-gzip\""));
+        log.debug("Catalog snapshot rebuilt: {} perfumes, {} bytes", published.size(), json.length);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        builder.shutdownNow();
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
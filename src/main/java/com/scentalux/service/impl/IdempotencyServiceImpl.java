@@ -0,0 +1,218 @@
+package com.scentalux.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scentalux.dto.OrderDTO;
+import com.scentalux.exception.IdempotencyKeyReuseException;
+import com.scentalux.model.IdempotencyRecord;
+import com.scentalux.repo.IIdempotencyRepo;
+import com.scentalux.service.IdempotencyService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Store de idempotencia para la creación de pedidos.
+ *
+ * En memoria guarda un future por clave: la primera petición lo completa y los
+ * duplicados concurrentes esperan ese mismo resultado. El mapa está acotado
+ * ({@code max-entries}, se descarta la clave terminada más antigua) y cada
+ * entrada caduca tras el TTL.
+ *
+ * En BD la clave se inserta (solo INSERT) en la misma transacción que el pedido,
+ * antes de crearlo: o se confirman los dos o ninguno. Un duplicado desde otra
+ * instancia choca con la clave primaria, espera al commit de la primera y
+ * recibe su respuesta. Cada clave guarda la huella del cuerpo de la petición y
+ * no se acepta con un cuerpo distinto.
+ */
+@Slf4j
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IIdempotencyRepo repo;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate tx;
+
+    @Value("${scentalux.idempotency.ttl:PT24H}")
+    private Duration ttl;
+
+    @Value("${scentalux.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    public IdempotencyServiceImpl(IIdempotencyRepo repo, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                  PlatformTransactionManager transactionManager) {
+        this.repo = repo;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    private record Entry(CompletableFuture<OrderDTO> result, String fingerprint, long expiresAtMillis) {
+        boolean isExpired(long now) {
+            return now >= expiresAtMillis;
+        }
+    }
+
+    // Las entradas en curso no se descartan: sus duplicados concurrentes las están esperando
+    private final Map<String, Entry> entries = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries && eldest.getValue().result().isDone();
+        }
+    });
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    void registerMetrics() {
+        hits = Counter.builder("orders.idempotency.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("orders.idempotency.requests").tag("result", "miss").register(meterRegistry);
+        meterRegistry.gaugeMapSize("orders.idempotency.entries", Tags.empty(), entries);
+    }
+
+    @Override
+    public OrderDTO executeOnce(String username, String key, Object request, Supplier<OrderDTO> action) {
+        String id = username + ":" + key;
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH || id.length() > IdempotencyRecord.KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must have between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String fingerprint = fingerprint(request);
+        long now = System.currentTimeMillis();
+
+        Entry existing = entries.get(id);
+        if (existing != null && existing.isExpired(now)) {
+            entries.remove(id, existing);
+            existing = null;
+        }
+        if (existing != null) {
+            hits.increment();
+            return await(existing, fingerprint);
+        }
+
+        Entry mine = new Entry(new CompletableFuture<>(), fingerprint, now + ttl.toMillis());
+        Entry raced = entries.putIfAbsent(id, mine);
+        if (raced != null) {
+            // Duplicado concurrente: espera a la primera petición
+            hits.increment();
+            return await(raced, fingerprint);
+        }
+
+        try {
+            OrderDTO result = runOnce(id, fingerprint, action);
+            mine.result().complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            // Un fallo no se cachea: el siguiente reintento vuelve a procesarse
+            entries.remove(id, mine);
+            mine.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Clave y pedido en la misma transacción; si la clave ya existe se devuelve la respuesta guardada
+    private OrderDTO runOnce(String id, String fingerprint, Supplier<OrderDTO> action) {
+        boolean retried = false;
+        while (true) {
+            try {
+                OrderDTO result = tx.execute(status -> {
+                    repo.insertPending(id, fingerprint, LocalDateTime.now().plus(ttl));
+                    OrderDTO created = action.get();
+                    repo.complete(id, toJson(created));
+                    return created;
+                });
+                misses.increment();
+                return result;
+            } catch (DataIntegrityViolationException e) {
+                IdempotencyRecord stored = repo.findById(id).orElseThrow(() -> e);
+                if (!stored.getExpiresAt().isAfter(LocalDateTime.now()) && !retried) {
+                    // Caducada pero aún sin purgar: se libera la clave y se procesa de nuevo
+                    repo.deleteExpired(id, LocalDateTime.now());
+                    retried = true;
+                    continue;
+                }
+                hits.increment();
+                checkFingerprint(stored.getFingerprint(), fingerprint);
+                return fromJson(stored);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${scentalux.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            entries.values().removeIf(entry -> entry.isExpired(now) && entry.result().isDone());
+        }
+        int deleted = repo.deleteExpired(LocalDateTime.now());
+        log.debug("Purged {} expired idempotency keys", deleted);
+    }
+
+    // SHA-256 del cuerpo ya deserializado: el orden de campos y los espacios del JSON no cuentan
+    private String fingerprint(Object request) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint idempotent request", e);
+        }
+    }
+
+    private static void checkFingerprint(String original, String fingerprint) {
+        // Los registros anteriores a la huella no la tienen: se aceptan
+        if (original != null && !original.equals(fingerprint)) {
+            throw new IdempotencyKeyReuseException("Idempotency-Key already used with a different request");
+        }
+    }
+
+    private String toJson(OrderDTO result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize idempotent response", e);
+        }
+    }
+
+    private OrderDTO fromJson(IdempotencyRecord stored) {
+        try {
+            return objectMapper.readValue(stored.getResponse(), OrderDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable idempotency record " + stored.getKey(), e);
+        }
+    }
+
+    private static OrderDTO await(Entry entry, String fingerprint) {
+        checkFingerprint(entry.fingerprint(), fingerprint);
+        try {
+            return entry.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -1,19 +1,49 @@
 package com.scentalux.service.impl;
 
+import com.scentalux.dto.CatalogFilterDTO;
+import com.scentalux.dto.PageDTO;
+import com.scentalux.dto.PerfumeDTO;
+import com.scentalux.dto.PerfumeNoteRowDTO;
+import com.scentalux.event.PerfumeChangedEvent;
+import com.scentalux.exception.ModelNotFoundException;
+import com.scentalux.mapper.PerfumeMapper;
 import com.scentalux.model.Perfume;
 import com.scentalux.repo.IGenericRepo;
 import com.scentalux.repo.PerfumeRepository;
+import com.scentalux.repo.PerfumeSpecifications;
 import com.scentalux.service.PerfumeService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ImplPerfume extends ImplGenericService<Perfume, Integer> implements PerfumeService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final Set<String> CATEGORIES = Set.of("PARA_EL", "PARA_ELLA", "UNISEX");
+    private static final Set<String> SORT_FIELDS = Set.of("price", "name", "createdAt");
+
     private final PerfumeRepository repo;
+    private final StockReservationLedger stockLedger;
+    private final PerfumeCatalogCache catalogCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PerfumeSearchIndex searchIndex;
+    private final PerfumeNoteIndex noteIndex;
 
     @Override
     protected IGenericRepo<Perfume, Integer> getRepo() {
@@ -27,4 +57,149 @@ public class ImplPerfume extends ImplGenericService<Perfume, Integer> implements
         }
         return repo.findAll(pageable);
     }
+
+    @Transactional(readOnly = true)
+    @Override
+    public PageDTO<PerfumeDTO> searchCatalog(CatalogFilterDTO filter, int page, int size,
+                                             String sort, String direction) {
+        checkPage(page, size);
+        if (filter.getCategory() != null && !CATEGORIES.contains(filter.getCategory())) {
+            throw new IllegalArgumentException("Unknown category: " + filter.getCategory());
+        }
+        if (!SORT_FIELDS.contains(sort)) {
+            throw new IllegalArgumentException("Cannot sort by: " + sort);
+        }
+
+        // El id desempata para que el orden entre páginas sea estable
+        Sort order = Sort.by(Sort.Direction.fromString(direction), sort).and(Sort.by("id"));
+        Page<PerfumeDTO> result = repo.findAll(PerfumeSpecifications.catalog(filter), PageRequest.of(page, size, order))
+                .map(PerfumeMapper::toDTO);
+        return new PageDTO<>(result.getContent(), page, size, result.getTotalElements(), result.getTotalPages());
+    }
+
+    @Override
+    public PageDTO<PerfumeDTO> search(String query, int page, int size) {
+        checkPage(page, size);
+        PerfumeSearchIndex.Result result = searchIndex.search(query, page, size);
+        return toPage(hydrate(result.ids()), page, size, result.total());
+    }
+
+    @Override
+    public PageDTO<PerfumeDTO> findByNotes(List<String> allNotes, List<String> anyNotes, int page, int size) {
+        checkPage(page, size);
+        List<String> all = allNotes != null ? allNotes : List.of();
+        List<String> any = anyNotes != null ? anyNotes : List.of();
+        if (all.isEmpty() && any.isEmpty()) {
+            throw new IllegalArgumentException("At least one note is required");
+        }
+        PerfumeNoteIndex.Result result = noteIndex.find(all, any, page, size);
+        return toPage(hydrate(result.ids()), page, size, result.total());
+    }
+
+    // DTOs en el orden de ids: los que no están en caché se cargan (con sus notas) en una sola consulta
+    private List<PerfumeDTO> hydrate(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, PerfumeDTO> found = catalogCache.getAll(ids, missing -> repo.findWithNotesByIdIn(Set.copyOf(missing))
+                .stream()
+                .collect(Collectors.toMap(Perfume::getId, PerfumeMapper::toDTO)));
+        return ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private static void checkPage(int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    private static PageDTO<PerfumeDTO> toPage(List<PerfumeDTO> items, int page, int size, long total) {
+        return new PageDTO<>(items, page, size, total, (int) ((total + size - 1) / size));
+    }
+
+    @Override
+    public List<PerfumeDTO> listCatalog() {
+        return catalogCache.getAll(() -> repo.findAllWithNotesBy().stream()
+                .map(PerfumeMapper::toDTO)
+                .toList());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<PerfumeDTO> listPublishedCatalog() {
+        Map<Integer, List<String>> notes = new HashMap<>();
+        for (PerfumeNoteRowDTO row : repo.findPublishedNotes()) {
+            notes.computeIfAbsent(row.getPerfumeId(), key -> new ArrayList<>()).add(row.getNote());
+        }
+        return repo.findPublishedCatalogRows().stream()
+                .map(row -> PerfumeMapper.toDTO(row, notes.getOrDefault(row.getId(), new ArrayList<>())))
+                .toList();
+    }
+
+    @Override
+    public PerfumeDTO findCatalogEntry(Integer id) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID cannot be null");
+        }
+        return catalogCache.get(id, key -> repo.findWithNotesById(key)
+                .map(PerfumeMapper::toDTO)
+                .orElseThrow(() -> new ModelNotFoundException("ID NOT FOUND: " + key)));
+    }
+
+    @Override
+    public List<PerfumeDTO> findCatalogEntries(List<Integer> ids) {
+        return hydrate(ids);
+    }
+
+    @Transactional
+    @Override
+    public int decrementStock(Integer id, int quantity) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID cannot be null");
+        }
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative");
+        }
+        // Con el ledger activo se reserva primero en él: su contador ya descuenta los items pendientes
+        if (stockLedger.isEnabled() && stockLedger.tryReserve(Map.of(id, quantity)).isPresent()) {
+            return 0;
+        }
+        int updatedRows = repo.decrementStock(id, quantity);
+        if (updatedRows == 0 && stockLedger.isEnabled()) {
+            // Deshace la reserva del ledger al terminar la transacción
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        }
+        if (updatedRows > 0) {
+            eventPublisher.publishEvent(new PerfumeChangedEvent(List.of(id), PerfumeChangedEvent.Type.STOCK_CHANGED));
+        }
+        return updatedRows;
+    }
+
+    @Override
+    public Perfume save(Perfume perfume) {
+        Perfume saved = super.save(perfume);
+        eventPublisher.publishEvent(new PerfumeChangedEvent(List.of(saved.getId()), PerfumeChangedEvent.Type.UPSERTED));
+        return saved;
+    }
+
+    @Override
+    public Perfume update(Perfume perfume, Integer id) {
+        Perfume updated = super.update(perfume, id);
+        stockLedger.evict(id);
+        eventPublisher.publishEvent(new PerfumeChangedEvent(List.of(id), PerfumeChangedEvent.Type.UPSERTED));
+        return updated;
+    }
+
+    @Override
+    public void delete(Integer id) {
+        super.delete(id);
+        stockLedger.evict(id);
+        eventPublisher.publishEvent(new PerfumeChangedEvent(List.of(id), PerfumeChangedEvent.Type.DELETED));
+    }
 }
@@ -0,0 +1,156 @@
+package com.scentalux.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scentalux.dto.OrderExportRowDTO;
+import com.scentalux.exception.OrderValidationException;
+import com.scentalux.model.OrderStatus;
+import com.scentalux.repo.IOrderRepo;
+import com.scentalux.service.OrderExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class OrderExportServiceImpl implements OrderExportService {
+
+    // Cada cuántas filas se vacía el buffer de salida (las filas son proyecciones DTO: no quedan en el contexto de persistencia)
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final String CSV_HEADER = "orderNumber,orderDate,status,customerName,paymentMethod,"
+            + "subtotal,taxes,total,city,perfumeId,perfumeName,quantity,unitPrice,totalPrice";
+
+    private final IOrderRepo orderRepo;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    @Override
+    public void exportOrders(String format, OrderStatus status, LocalDateTime from, LocalDateTime to,
+                             OutputStream out) throws IOException, OrderValidationException {
+        if (!FORMAT_NDJSON.equals(format) && !FORMAT_CSV.equals(format)) {
+            throw new OrderValidationException("Formato de exportación no soportado: " + format);
+        }
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try (Stream<OrderExportRowDTO> rows = orderRepo.streamExportRows(status, from, to)) {
+            if (FORMAT_CSV.equals(format)) {
+                writeCsv(rows.iterator(), writer);
+            } else {
+                writeNdjson(rows.iterator(), writer);
+            }
+        }
+        writer.flush();
+    }
+
+    // Una línea JSON por pedido; las filas llegan agrupadas por pedido
+    private void writeNdjson(Iterator<OrderExportRowDTO> rows, Writer writer) throws IOException {
+        JsonGenerator gen = objectMapper.getFactory().createGenerator(writer);
+        gen.setPrettyPrinter(new MinimalPrettyPrinter(""));
+
+        Integer currentOrder = null;
+        long count = 0;
+        while (rows.hasNext()) {
+            OrderExportRowDTO row = rows.next();
+            if (!row.getOrderId().equals(currentOrder)) {
+                if (currentOrder != null) {
+                    endOrder(gen);
+                }
+                startOrder(gen, row);
+                currentOrder = row.getOrderId();
+            }
+            if (row.getPerfumeId() != null) {
+                gen.writeStartObject();
+                gen.writeNumberField("perfumeId", row.getPerfumeId());
+                gen.writeStringField("perfumeName", row.getPerfumeName());
+                gen.writeNumberField("quantity", row.getQuantity());
+                gen.writeNumberField("unitPrice", row.getUnitPrice());
+                gen.writeNumberField("totalPrice", row.getTotalPrice());
+                gen.writeEndObject();
+            }
+            if (++count % CHUNK_SIZE == 0) {
+                gen.flush();
+            }
+        }
+        if (currentOrder != null) {
+            endOrder(gen);
+        }
+        gen.flush();
+    }
+
+    private void startOrder(JsonGenerator gen, OrderExportRowDTO row) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("orderNumber", row.getOrderNumber());
+        gen.writeStringField("orderDate", row.getOrderDate().toString());
+        gen.writeStringField("status", row.getStatus().name());
+        gen.writeStringField("customerName", row.getCustomerName());
+        gen.writeStringField("paymentMethod", row.getPaymentMethod());
+        gen.writeNumberField("subtotal", row.getSubtotal());
+        gen.writeNumberField("taxes", row.getTaxes());
+        gen.writeNumberField("total", row.getTotal());
+        gen.writeStringField("city", row.getCity());
+        gen.writeArrayFieldStart("items");
+    }
+
+    private void endOrder(JsonGenerator gen) throws IOException {
+        gen.writeEndArray();
+        gen.writeEndObject();
+        gen.writeRaw('\n');
+    }
+
+    // Una fila CSV por item (los pedidos sin items salen con las columnas de item vacías)
+    private void writeCsv(Iterator<OrderExportRowDTO> rows, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        long count = 0;
+        while (rows.hasNext()) {
+            OrderExportRowDTO row = rows.next();
+            writer.write(String.join(",",
+                    csv(row.getOrderNumber()),
+                    csv(row.getOrderDate()),
+                    csv(row.getStatus()),
+                    csv(row.getCustomerName()),
+                    csv(row.getPaymentMethod()),
+                    csv(row.getSubtotal()),
+                    csv(row.getTaxes()),
+                    csv(row.getTotal()),
+                    csv(row.getCity()),
+                    csv(row.getPerfumeId()),
+                    csv(row.getPerfumeName()),
+                    csv(row.getQuantity()),
+                    csv(row.getUnitPrice()),
+                    csv(row.getTotalPrice())));
+            writer.write('\n');
+            if (++count % CHUNK_SIZE == 0) {
+                writer.flush();
+            }
+        }
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        // Un texto que empieza por = + - @ se abriría como fórmula en Excel/Sheets; los números no se tocan
+        if (value instanceof String && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
@@ -1,33 +1,66 @@
 package com.scentalux.service.impl;
 
+import com.scentalux.dto.BulkStatusResultDTO;
+import com.scentalux.dto.BulkStatusUpdateDTO;
 import com.scentalux.dto.CreateOrderDTO;
+import com.scentalux.dto.CursorPageDTO;
 import com.scentalux.dto.OrderDTO;
 import com.scentalux.dto.OrderItemDTO;
 import com.scentalux.dto.OrderItemResponseDTO;
+import com.scentalux.dto.OrderSummaryDTO;
+import com.scentalux.event.PerfumeChangedEvent;
 import com.scentalux.model.Order;
 import com.scentalux.model.OrderItem;
+import com.scentalux.model.OrderStatus;
 import com.scentalux.model.Perfume;
 import com.scentalux.model.User;
+import com.scentalux.repo.IOrderItemRepo;
 import com.scentalux.repo.IOrderRepo;
 import com.scentalux.repo.IUserRepo;
 import com.scentalux.repo.PerfumeRepository;
+import com.scentalux.service.OrderNumberGenerator;
 import com.scentalux.service.OrderService;
 import com.scentalux.exception.OrderNotFoundException;
 import com.scentalux.exception.OrderValidationException;
+import com.scentalux.util.OrderCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class OrderServiceImpl extends ImplGenericService<Order, Integer> implements OrderService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int BULK_CHUNK_SIZE = 500;
+    private static final int MAX_BULK_ORDERS = 10_000;
+    private static final String DECREMENT_STOCK =
+            "UPDATE perfumes SET stock = stock - ? WHERE id = ? AND stock >= ?";
+
     private final IOrderRepo orderRepo;
+    private final IOrderItemRepo orderItemRepo;
     private final IUserRepo userRepo;
     private final PerfumeRepository perfumeRepo;
+    private final StockReservationLedger stockLedger;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final OrderStatusCounters statusCounters;
+    private final PerfumeRankings perfumeRankings;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbc;
 
     @Override
     protected IOrderRepo getRepo() {
@@ -45,6 +78,7 @@ public class OrderServiceImpl extends ImplGenericService<Order, Integer> impleme
 
         // Crear pedido
         Order order = new Order();
+        order.setOrderNumber(orderNumberGenerator.nextOrderNumber());
         order.setUser(user);
         order.setPaymentMethod(orderDTO.getPaymentMethod());
         order.setCustomerName(orderDTO.getCustomerName());
@@ -52,47 +86,62 @@ public class OrderServiceImpl extends ImplGenericService<Order, Integer> impleme
         order.setCity(orderDTO.getCity());
         order.setPostalCode(orderDTO.getPostalCode());
         order.setPhone(orderDTO.getPhone());
-        order.setStatus("PENDIENTE");
+        order.setStatus(OrderStatus.PENDIENTE);
 
         // Calcular totales
         double subtotal = 0.0;
 
-        // Procesar items
+        // Agrupar cantidades por perfume (las líneas repetidas se fusionan)
+        Map<Integer, Integer> quantities = new LinkedHashMap<>();
         for (OrderItemDTO itemDTO : orderDTO.getItems()) {
             Integer perfumeId = itemDTO.getPerfumeId();
             if (perfumeId == null) {
                 throw new OrderValidationException("El ID del perfume no puede ser nulo.");
             }
-            Optional<Perfume> perfumeOpt = perfumeRepo.findById(perfumeId);
-            if (perfumeOpt.isEmpty()) {
+            quantities.merge(perfumeId, itemDTO.getQuantity(), Integer::sum);
+        }
+
+        // Cargar todos los perfumes del pedido en una sola consulta
+        Map<Integer, Perfume> perfumes = perfumeRepo.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Perfume::getId, Function.identity()));
+
+        // Procesar items
+        for (Map.Entry<Integer, Integer> line : quantities.entrySet()) {
+            Integer perfumeId = line.getKey();
+            int quantity = line.getValue();
+
+            Perfume perfume = perfumes.get(perfumeId);
+            if (perfume == null) {
                 throw new OrderValidationException("Perfume no encontrado: " + perfumeId);
             }
-            
-            Perfume perfume = perfumeOpt.get();
 
             // Verificar stock
-            if (perfume.getStock() < itemDTO.getQuantity()) {
-                throw new OrderValidationException("Stock insuficiente para: " + perfume.getName() + 
-                                  ". Stock disponible: " + perfume.getStock() + 
-                                  ", solicitado: " + itemDTO.getQuantity());
+            if (perfume.getStock() < quantity) {
+                throw insufficientStock(perfume, perfume.getStock(), quantity);
             }
 
-            // Actualizar stock
-            perfume.setStock(perfume.getStock() - itemDTO.getQuantity());
-            perfumeRepo.save(perfume);
-
             // Crear item del pedido
             OrderItem orderItem = new OrderItem();
             orderItem.setOrder(order);
             orderItem.setPerfume(perfume);
-            orderItem.setQuantity(itemDTO.getQuantity());
+            orderItem.setQuantity(quantity);
             orderItem.setUnitPrice(perfume.getPrice());
-            orderItem.setTotalPrice(perfume.getPrice() * itemDTO.getQuantity());
+            orderItem.setTotalPrice(perfume.getPrice() * quantity);
+            orderItem.setStockApplied(!stockLedger.isEnabled());
 
             order.getItems().add(orderItem);
             subtotal += orderItem.getTotalPrice();
         }
 
+        // Descontar stock
+        if (stockLedger.isEnabled()) {
+            reserveInLedger(quantities, perfumes);
+        } else {
+            decrementInDatabase(quantities, perfumes);
+        }
+
+        perfumeRankings.recordSale(quantities);
+
         // Calcular impuestos y total
         double taxes = subtotal * 0.08; // 8% de impuestos
         double total = subtotal + taxes;
@@ -103,23 +152,74 @@ public class OrderServiceImpl extends ImplGenericService<Order, Integer> impleme
 
         // Guardar pedido
         Order savedOrder = orderRepo.save(order);
+        statusCounters.created(savedOrder.getStatus());
         return convertToDTO(savedOrder);
     }
 
+    // Un UPDATE condicional por línea (sin leer-modificar-escribir), enviados en un único batch JDBC;
+    // una fila no actualizada significa que otro pedido agotó el stock después de la lectura
+    private void decrementInDatabase(Map<Integer, Integer> quantities, Map<Integer, Perfume> perfumes) {
+        List<Map.Entry<Integer, Integer>> lines = new ArrayList<>(quantities.entrySet());
+        int[] updatedRows = jdbc.batchUpdate(DECREMENT_STOCK, lines.stream()
+                .map(line -> new Object[]{line.getValue(), line.getKey(), line.getValue()})
+                .toList());
+        for (int i = 0; i < updatedRows.length; i++) {
+            if (updatedRows[i] == 0) {
+                Map.Entry<Integer, Integer> line = lines.get(i);
+                throw insufficientStock(perfumes.get(line.getKey()), line.getValue());
+            }
+        }
+        eventPublisher.publishEvent(new PerfumeChangedEvent(List.copyOf(quantities.keySet()),
+                PerfumeChangedEvent.Type.STOCK_CHANGED));
+    }
+
+    // Reserva en memoria (se devuelve sola si el pedido no llega a confirmarse); la BD se actualiza en lote desde el ledger
+    private void reserveInLedger(Map<Integer, Integer> quantities, Map<Integer, Perfume> perfumes) {
+        Optional<Integer> rejected = stockLedger.tryReserve(quantities);
+        if (rejected.isPresent()) {
+            throw insufficientStock(perfumes.get(rejected.get()), quantities.get(rejected.get()));
+        }
+    }
+
+    // Otro pedido ganó la carrera después de la lectura: el stock cargado ya no vale, se relee el disponible
+    private OrderValidationException insufficientStock(Perfume perfume, int quantity) {
+        Long available = perfumeRepo.findAvailableStock(perfume.getId());
+        return insufficientStock(perfume, available != null ? Math.max(available, 0) : 0, quantity);
+    }
+
+    private static OrderValidationException insufficientStock(Perfume perfume, long available, int quantity) {
+        return new OrderValidationException("Stock insuficiente para: " + perfume.getName() +
+                ". Stock disponible: " + available +
+                ", solicitado: " + quantity);
+    }
+
+    @Transactional(readOnly = true)
     @Override
-    public List<OrderDTO> getUserOrders(String username) throws OrderNotFoundException {
-        List<Order> orders = orderRepo.findByUsernameOrderByOrderDateDesc(username);
-        if (orders.isEmpty()) {
-            throw new OrderNotFoundException("No se encontraron pedidos para el usuario: " + username);
+    public CursorPageDTO<OrderSummaryDTO> getUserOrderSummaries(String username, String cursor, int size)
+            throws OrderValidationException {
+        checkPageSize(size);
+        OrderCursor after = OrderCursor.decode(cursor);
+
+        List<OrderSummaryDTO> summaries = orderRepo.findSummaryPage(username,
+                after != null ? after.orderDate() : null,
+                after != null ? after.id() : null,
+                PageRequest.of(0, size + 1));
+
+        boolean hasNext = summaries.size() > size;
+        List<OrderSummaryDTO> page = hasNext ? summaries.subList(0, size) : summaries;
+
+        String nextCursor = null;
+        if (hasNext) {
+            OrderSummaryDTO last = page.get(page.size() - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getId()).encode();
         }
-        return orders.stream()
-                .map(this::convertToDTO)
-                .toList(); // Replaced collect(Collectors.toList()) with toList()
+        return new CursorPageDTO<>(page, nextCursor);
     }
 
+    @Transactional(readOnly = true)
     @Override
     public OrderDTO getOrderByNumber(String orderNumber) throws OrderNotFoundException {
-        Optional<Order> orderOpt = orderRepo.findByOrderNumber(orderNumber);
+        Optional<Order> orderOpt = orderRepo.findWithItemsByOrderNumber(orderNumber);
         if (orderOpt.isEmpty()) {
             throw new OrderNotFoundException("Pedido no encontrado: " + orderNumber);
         }
@@ -132,15 +232,121 @@ public class OrderServiceImpl extends ImplGenericService<Order, Integer> impleme
         if (orderId == null) {
             throw new OrderValidationException("Order ID cannot be null");
         }
+        OrderStatus target = OrderStatus.from(status)
+                .orElseThrow(() -> new OrderValidationException("Estado no válido: " + status));
         Order order = findById(orderId);
         if (order == null) {
             throw new OrderValidationException("Pedido no encontrado: " + orderId);
         }
-        order.setStatus(status);
+        OrderStatus current = order.getStatus();
+        if (!current.canTransitionTo(target)) {
+            throw new OrderValidationException("Transición no permitida: " + current + " → " + target);
+        }
+        if (target == OrderStatus.CANCELADO) {
+            perfumeRankings.reverseSales(List.of(orderId));
+        }
+        order.setStatus(target);
         Order updatedOrder = orderRepo.save(order);
+        statusCounters.transitioned(current, target, 1);
         return convertToDTO(updatedOrder);
     }
 
+    @Transactional
+    @Override
+    public void delete(Integer id) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID cannot be null");
+        }
+        Order order = findById(id);
+        if (order.getStatus() != OrderStatus.CANCELADO) {
+            perfumeRankings.reverseSales(List.of(id));
+        }
+        orderRepo.delete(order);
+        statusCounters.deleted(order.getStatus());
+    }
+
+    @Override
+    public Map<OrderStatus, Long> countByStatus() {
+        return statusCounters.snapshot();
+    }
+
+    @Transactional
+    @Override
+    public List<BulkStatusResultDTO> bulkUpdateStatus(BulkStatusUpdateDTO request) throws OrderValidationException {
+        OrderStatus target = OrderStatus.from(request.getStatus())
+                .orElseThrow(() -> new OrderValidationException("Estado no válido: " + request.getStatus()));
+
+        Set<Integer> ids = request.getOrderIds() != null ? new LinkedHashSet<>(request.getOrderIds()) : Set.of();
+        Set<String> numbers = request.getOrderNumbers() != null ? new LinkedHashSet<>(request.getOrderNumbers()) : Set.of();
+        if (ids.size() + numbers.size() > MAX_BULK_ORDERS) {
+            throw new OrderValidationException("Máximo " + MAX_BULK_ORDERS + " pedidos por petición");
+        }
+
+        List<BulkStatusResultDTO> results = new ArrayList<>(ids.size() + numbers.size());
+        for (List<Integer> chunk : chunks(new ArrayList<>(ids))) {
+            Map<String, IOrderRepo.StatusView> found = orderRepo.findStatusByIdIn(chunk).stream()
+                    .collect(Collectors.toMap(view -> view.getId().toString(), Function.identity()));
+            results.addAll(applyStatus(chunk.stream().map(String::valueOf).toList(), found, target));
+        }
+        for (List<String> chunk : chunks(new ArrayList<>(numbers))) {
+            Map<String, IOrderRepo.StatusView> found = orderRepo.findStatusByOrderNumberIn(chunk).stream()
+                    .collect(Collectors.toMap(IOrderRepo.StatusView::getOrderNumber, Function.identity()));
+            results.addAll(applyStatus(chunk, found, target));
+        }
+        return results;
+    }
+
+    // Clasifica cada referencia y aplica un único UPDATE para las transiciones válidas del chunk
+    private List<BulkStatusResultDTO> applyStatus(List<String> refs, Map<String, IOrderRepo.StatusView> found,
+                                                  OrderStatus target) {
+        Map<String, BulkStatusResultDTO.Result> outcome = new LinkedHashMap<>();
+        Map<Integer, String> toUpdate = new LinkedHashMap<>();
+        Map<Integer, OrderStatus> previous = new LinkedHashMap<>();
+        for (String ref : refs) {
+            IOrderRepo.StatusView view = found.get(ref);
+            if (view == null) {
+                outcome.put(ref, BulkStatusResultDTO.Result.NOT_FOUND);
+            } else if (!view.getStatus().canTransitionTo(target)) {
+                outcome.put(ref, BulkStatusResultDTO.Result.ILLEGAL_TRANSITION);
+            } else {
+                outcome.put(ref, BulkStatusResultDTO.Result.UPDATED);
+                toUpdate.put(view.getId(), ref);
+                previous.put(view.getId(), view.getStatus());
+            }
+        }
+
+        if (!toUpdate.isEmpty()) {
+            int updated = orderRepo.updateStatus(toUpdate.keySet(), target, OrderStatus.sourcesOf(target));
+            if (updated != toUpdate.size()) {
+                // Algún pedido cambió de estado entre la lectura y el UPDATE: se reclasifica
+                orderRepo.findStatusByIdIn(toUpdate.keySet()).stream()
+                        .filter(view -> view.getStatus() != target)
+                        .forEach(view -> {
+                            outcome.put(toUpdate.get(view.getId()), BulkStatusResultDTO.Result.ILLEGAL_TRANSITION);
+                            previous.remove(view.getId());
+                        });
+            }
+            if (target == OrderStatus.CANCELADO) {
+                perfumeRankings.reverseSales(previous.keySet());
+            }
+            previous.values().stream()
+                    .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()))
+                    .forEach((from, count) -> statusCounters.transitioned(from, target, count));
+        }
+
+        return outcome.entrySet().stream()
+                .map(entry -> new BulkStatusResultDTO(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    private static <T> List<List<T>> chunks(List<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < values.size(); i += BULK_CHUNK_SIZE) {
+            chunks.add(values.subList(i, Math.min(i + BULK_CHUNK_SIZE, values.size())));
+        }
+        return chunks;
+    }
+
     @Transactional
     @Override
     public OrderDTO uploadReceipt(Integer orderId, String receiptImageUrl) throws OrderValidationException {
@@ -156,7 +362,56 @@ public class OrderServiceImpl extends ImplGenericService<Order, Integer> impleme
         return convertToDTO(updatedOrder);
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public CursorPageDTO<OrderDTO> findOrdersPage(String cursor, int size, String status,
+                                                  LocalDateTime from, LocalDateTime to) throws OrderValidationException {
+        checkPageSize(size);
+        OrderCursor after = OrderCursor.decode(cursor);
+
+        OrderStatus statusFilter = null;
+        if (status != null) {
+            statusFilter = OrderStatus.from(status)
+                    .orElseThrow(() -> new OrderValidationException("Estado no válido: " + status));
+        }
+
+        // Se pide un elemento extra para saber si hay página siguiente
+        List<Order> orders = orderRepo.findPage(statusFilter, from, to,
+                after != null ? after.orderDate() : null,
+                after != null ? after.id() : null,
+                PageRequest.of(0, size + 1));
+
+        boolean hasNext = orders.size() > size;
+        List<Order> page = hasNext ? orders.subList(0, size) : orders;
+
+        // Items y perfumes de toda la página en una sola consulta
+        Map<Integer, List<OrderItem>> itemsByOrder = page.isEmpty() ? Map.of() :
+                orderItemRepo.findWithPerfumeByOrderIdIn(page.stream().map(Order::getId).toList()).stream()
+                        .collect(Collectors.groupingBy(item -> item.getOrder().getId()));
+
+        List<OrderDTO> items = page.stream()
+                .map(order -> convertToDTO(order, itemsByOrder.getOrDefault(order.getId(), List.of())))
+                .toList();
+
+        String nextCursor = null;
+        if (hasNext) {
+            Order last = page.get(page.size() - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getId()).encode();
+        }
+        return new CursorPageDTO<>(items, nextCursor);
+    }
+
+    private void checkPageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new OrderValidationException("El tamaño de página debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+    }
+
     private OrderDTO convertToDTO(Order order) {
+        return convertToDTO(order, order.getItems());
+    }
+
+    private OrderDTO convertToDTO(Order order, List<OrderItem> items) {
         OrderDTO dto = new OrderDTO();
         dto.setId(order.getId());
         dto.setOrderNumber(order.getOrderNumber());
@@ -165,7 +420,7 @@ public class OrderServiceImpl extends ImplGenericService<Order, Integer> impleme
         dto.setSubtotal(order.getSubtotal());
         dto.setTaxes(order.getTaxes());
         dto.setTotal(order.getTotal());
-        dto.setStatus(order.getStatus());
+        dto.setStatus(order.getStatus().name());
         dto.setPaymentMethod(order.getPaymentMethod());
         dto.setReceiptImageUrl(order.getReceiptImageUrl());
         dto.setShippingAddress(order.getShippingAddress());
@@ -173,21 +428,23 @@ public class OrderServiceImpl extends ImplGenericService<Order, Integer> impleme
         dto.setPostalCode(order.getPostalCode());
 
         // Convertir items
-        List<OrderItemResponseDTO> itemDTOs = order.getItems().stream()
-                .map(item -> {
-                    OrderItemResponseDTO itemDTO = new OrderItemResponseDTO();
-                    itemDTO.setPerfumeId(item.getPerfume().getId());
-                    itemDTO.setPerfumeName(item.getPerfume().getName());
-                    itemDTO.setBrand(item.getPerfume().getBrand());
-                    itemDTO.setImageUrl(item.getPerfume().getImageUrl());
-                    itemDTO.setQuantity(item.getQuantity());
-                    itemDTO.setUnitPrice(item.getUnitPrice());
-                    itemDTO.setTotalPrice(item.getTotalPrice());
-                    return itemDTO;
-                })
+        List<OrderItemResponseDTO> itemDTOs = items.stream()
+                .map(this::convertItemToDTO)
                 .toList(); // Replaced collect(Collectors.toList()) with toList()
 
         dto.setItems(itemDTOs);
         return dto;
     }
-}
+
+    private OrderItemResponseDTO convertItemToDTO(OrderItem item) {
+        OrderItemResponseDTO itemDTO = new OrderItemResponseDTO();
+        itemDTO.setPerfumeId(item.getPerfume().getId());
+        itemDTO.setPerfumeName(item.getPerfume().getName());
+        itemDTO.setBrand(item.getPerfume().getBrand());
+        itemDTO.setImageUrl(item.getPerfume().getImageUrl());
+        itemDTO.setQuantity(item.getQuantity());
+        itemDTO.setUnitPrice(item.getUnitPrice());
+        itemDTO.setTotalPrice(item.getTotalPrice());
+        return itemDTO;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,166 @@
+package com.scentalux.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scentalux.dto.PerfumeDTO;
+import com.scentalux.event.PerfumeChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caché en memoria del catálogo: DTOs por id y el listado completo, y las
+ * respuestas ya serializadas con su ETag (por perfume y por vista: listado de
+ * administración, carruseles). Un If-None-Match solo compara con el ETag guardado.
+ *
+ * Acotada por tamaño y TTL. Se invalida con {@link PerfumeChangedEvent} una vez
+ * confirmada la transacción que modificó los perfumes, así una lectura concurrente
+ * no vuelve a cachear el estado anterior. Las cargas en bloque (getAll) no quedan
+ * bloqueadas por la invalidación como un get por clave: cada invalidación sube
+ * {@code generation} y lo cargado durante una generación anterior se descarta.
+ * Métricas en {@code cache.gets},
+ * {@code cache.evictions}, etc. con {@code cache=perfumes.byId|perfumes.list|perfumes.rendered}.
+ */
+@Slf4j
+@Component
+public class PerfumeCatalogCache {
+
+    // Cuerpo JSON y su ETag fuerte (hash del contenido: igual en todas las instancias)
+    public record Rendered(byte[] json, String etag) {
+    }
+
+    private static final String ALL = "all";
+
+    private final ObjectMapper objectMapper;
+
+    private final Cache<Integer, PerfumeDTO> byId;
+    private final Cache<String, List<PerfumeDTO>> list;
+    private final Cache<Integer, Rendered> renderedById;
+    private final Cache<String, Rendered> renderedViews;
+    private final AtomicLong generation = new AtomicLong();
+
+    public PerfumeCatalogCache(MeterRegistry meterRegistry,
+                               ObjectMapper objectMapper,
+                               @Value("${scentalux.perfume.cache.max-size:10000}") long maxSize,
+                               @Value("${scentalux.perfume.cache.ttl:PT10M}") Duration ttl) {
+        this.objectMapper = objectMapper;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.list = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.renderedById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        // Pocas vistas: el listado de administración y un par de carruseles por tamaño
+        this.renderedViews = Caffeine.newBuilder()
+                .maximumSize(100)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "perfumes.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, renderedById, "perfumes.rendered");
+        CaffeineCacheMetrics.monitor(meterRegistry, list, "perfumes.list");
+    }
+
+    public PerfumeDTO get(Integer id, Function<Integer, PerfumeDTO> loader) {
+        return byId.get(id, loader);
+    }
+
+    // Las entradas que faltan se cargan juntas con un único loader
+    public Map<Integer, PerfumeDTO> getAll(Collection<Integer> ids,
+                                           Function<Set<? extends Integer>, Map<Integer, PerfumeDTO>> loader) {
+        long seen = generation.get();
+        Map<Integer, PerfumeDTO> found = byId.getAll(ids, loader);
+        if (generation.get() != seen) {
+            // Hubo una invalidación mientras se cargaba: lo insertado puede ser anterior al commit
+            found.forEach((id, dto) -> byId.asMap().remove(id, dto));
+        }
+        return found;
+    }
+
+    public List<PerfumeDTO> getAll(Supplier<List<PerfumeDTO>> loader) {
+        long seen = generation.get();
+        boolean[] loaded = {false};
+        List<PerfumeDTO> perfumes = list.get(ALL, key -> {
+            loaded[0] = true;
+            return List.copyOf(loader.get());
+        });
+        if (!loaded[0]) {
+            return perfumes;
+        }
+        // El listado también calienta las entradas individuales
+        perfumes.forEach(dto -> byId.put(Integer.valueOf(dto.getId()), dto));
+        if (generation.get() != seen) {
+            list.asMap().remove(ALL, perfumes);
+            perfumes.forEach(dto -> byId.asMap().remove(Integer.valueOf(dto.getId()), dto));
+        }
+        return perfumes;
+    }
+
+    // Respuesta de un perfume; se invalida con los cambios de ese perfume
+    public Rendered rendered(Integer id, Supplier<Object> body) {
+        long seen = generation.get();
+        Rendered rendered = renderedById.get(id, key -> render(body.get()));
+        if (generation.get() != seen) {
+            renderedById.asMap().remove(id, rendered);
+        }
+        return rendered;
+    }
+
+    // Respuesta que agrega varios perfumes; se invalida con cualquier cambio del catálogo
+    public Rendered rendered(String view, Supplier<Object> body) {
+        long seen = generation.get();
+        Rendered rendered = renderedViews.get(view, key -> render(body.get()));
+        if (generation.get() != seen) {
+            renderedViews.asMap().remove(view, rendered);
+        }
+        return rendered;
+    }
+
+    private Rendered render(Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new Rendered(json, "\"" + DigestUtils.md5DigestAsHex(json) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize catalog response", e);
+        }
+    }
+
+    // Antes que CatalogSnapshot: la instantánea nueva se construye con la caché ya limpia
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPerfumeChanged(PerfumeChangedEvent event) {
+        // Primero la generación: una carga que inserte después de esta línea se descarta sola
+        generation.incrementAndGet();
+        byId.invalidateAll(event.perfumeIds());
+        list.invalidateAll();
+        renderedById.invalidateAll(event.perfumeIds());
+        renderedViews.invalidateAll();
+        log.debug("Perfume cache invalidated for {} ({})", event.perfumeIds(), event.type());
+    }
+}
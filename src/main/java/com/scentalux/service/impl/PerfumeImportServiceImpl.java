@@ -0,0 +1,375 @@
+package com.scentalux.service.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scentalux.dto.ImportResultDTO;
+import com.scentalux.dto.PerfumeDTO;
+import com.scentalux.event.PerfumeChangedEvent;
+import com.scentalux.service.PerfumeImportService;
+import com.scentalux.util.CsvReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Importación masiva de perfumes.
+ *
+ * El fichero se lee en streaming y las filas válidas se acumulan en lotes; cada
+ * lote va en su propia transacción con inserts/updates JDBC por lotes (sin pasar
+ * por JPA), así la memoria no crece con el tamaño del fichero. La clave natural
+ * es (marca, nombre): si ya existe se actualiza, si no se inserta. Si un lote
+ * falla en BD se reintenta fila a fila para señalar solo las filas culpables.
+ */
+@Slf4j
+@Service
+public class PerfumeImportServiceImpl implements PerfumeImportService {
+
+    // Columnas CSV admitidas (la cabecera es obligatoria; las notas van separadas por '|')
+    private static final List<String> CSV_COLUMNS = List.of(
+            "name", "brand", "price", "stock", "category", "imageurl", "description", "published", "notes");
+
+    private static final Map<String, String> CATEGORIES = Map.of(
+            "para él", "PARA_EL", "para el", "PARA_EL", "para_el", "PARA_EL",
+            "para ella", "PARA_ELLA", "para_ella", "PARA_ELLA",
+            "unisex", "UNISEX");
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final String SELECT_KEYS =
+            "SELECT id, brand, name FROM perfumes WHERE (brand, name) IN (:keys)";
+    private static final String INSERT_PERFUME =
+            "INSERT INTO perfumes (name, brand, price, stock, image_url, description, category, published, created_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_PERFUME =
+            "UPDATE perfumes SET price = ?, stock = ?, image_url = ?, description = ?, category = ?, published = ? "
+                    + "WHERE id = ?";
+    private static final String DELETE_NOTES = "DELETE FROM perfume_notes WHERE perfume_id IN (:ids)";
+    private static final String INSERT_NOTE = "INSERT INTO perfume_notes (perfume_id, note) VALUES (?, ?)";
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockReservationLedger stockLedger;
+    private final int batchSize;
+
+    public PerfumeImportServiceImpl(NamedParameterJdbcTemplate jdbc,
+                                    PlatformTransactionManager transactionManager,
+                                    ObjectMapper objectMapper,
+                                    Validator validator,
+                                    ApplicationEventPublisher eventPublisher,
+                                    StockReservationLedger stockLedger,
+                                    @Value("${scentalux.perfume.import.batch-size:500}") int batchSize) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.stockLedger = stockLedger;
+        this.batchSize = batchSize;
+    }
+
+    // Fila válida ya normalizada, con su posición en el fichero
+    private record Row(long number, PerfumeDTO dto, String category) {
+
+        String key() {
+            return PerfumeImportServiceImpl.key(dto.getBrand(), dto.getName());
+        }
+    }
+
+    // Resultado de un lote ya confirmado
+    private record Written(int inserted, List<Integer> updatedIds) {
+    }
+
+    @Override
+    public ImportResultDTO importPerfumes(String format, InputStream in) throws IOException {
+        ImportResultDTO result = new ImportResultDTO();
+        Map<String, Row> chunk = new LinkedHashMap<>();
+        if (FORMAT_CSV.equals(format)) {
+            readCsv(in, result, chunk);
+        } else if (FORMAT_JSON.equals(format)) {
+            readJson(in, result, chunk);
+        } else {
+            throw new IllegalArgumentException("Formato de importación no soportado: " + format);
+        }
+        flush(chunk, result);
+        log.info("Perfume import finished: {} rows, {} inserted, {} updated, {} failed",
+                result.getTotal(), result.getInserted(), result.getUpdated(), result.getFailed());
+        return result;
+    }
+
+    private void readJson(InputStream in, ImportResultDTO result, Map<String, Row> chunk) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Se esperaba un array JSON de perfumes");
+            }
+            long number = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IllegalArgumentException("El array JSON no está cerrado");
+                }
+                number++;
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    reject(result, number, List.of("se esperaba un objeto"));
+                    continue;
+                }
+                // Como árbol: un valor de tipo incorrecto invalida la fila, no el resto del fichero
+                JsonNode node = parser.readValueAsTree();
+                try {
+                    accept(objectMapper.treeToValue(node, PerfumeDTO.class), number, result, chunk);
+                } catch (JsonProcessingException e) {
+                    reject(result, number, List.of(e.getOriginalMessage()));
+                }
+            }
+        }
+    }
+
+    private void readCsv(InputStream in, ImportResultDTO result, Map<String, Row> chunk) throws IOException {
+        try (CsvReader csv = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            List<String> header = csv.next();
+            if (header == null) {
+                return;
+            }
+            int[] columns = new int[header.size()];
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i).strip().toLowerCase(Locale.ROOT);
+                // Quita el BOM que añaden algunas hojas de cálculo
+                columns[i] = CSV_COLUMNS.indexOf(i == 0 ? name.replace("\uFEFF", "") : name);
+                if (columns[i] < 0) {
+                    throw new IllegalArgumentException("Columna CSV desconocida: " + header.get(i));
+                }
+            }
+
+            long number = 0;
+            List<String> record;
+            while ((record = csv.next()) != null) {
+                number++;
+                List<String> errors = new ArrayList<>();
+                PerfumeDTO dto = new PerfumeDTO();
+                for (int i = 0; i < record.size() && i < columns.length; i++) {
+                    setCsvField(dto, CSV_COLUMNS.get(columns[i]), record.get(i).strip(), errors);
+                }
+                if (errors.isEmpty()) {
+                    accept(dto, number, result, chunk);
+                } else {
+                    reject(result, number, errors);
+                }
+            }
+        }
+    }
+
+    private static void setCsvField(PerfumeDTO dto, String column, String value, List<String> errors) {
+        if (value.isEmpty() && column.equals("notes")) {
+            dto.setNotes(List.of()); // columna presente pero vacía: el perfume se queda sin notas
+            return;
+        }
+        if (value.isEmpty()) {
+            return; // se queda en null y lo señala la validación si es obligatorio
+        }
+        switch (column) {
+            case "name" -> dto.setName(value);
+            case "brand" -> dto.setBrand(value);
+            case "price" -> {
+                try {
+                    dto.setPrice(Double.valueOf(value));
+                } catch (NumberFormatException e) {
+                    errors.add("price: no es un número");
+                }
+            }
+            case "stock" -> {
+                try {
+                    dto.setStock(Integer.valueOf(value));
+                } catch (NumberFormatException e) {
+                    errors.add("stock: no es un número entero");
+                }
+            }
+            case "category" -> dto.setCategory(value);
+            case "imageurl" -> dto.setImageUrl(value);
+            case "description" -> dto.setDescription(value);
+            case "published" -> dto.setPublished(Boolean.parseBoolean(value));
+            case "notes" -> dto.setNotes(List.of(value.split("\\|")));
+            default -> throw new IllegalStateException(column);
+        }
+    }
+
+    // Valida como PerfumeDTO y añade la fila al lote actual
+    private void accept(PerfumeDTO dto, long number, ImportResultDTO result, Map<String, Row> chunk) {
+        List<String> errors = new ArrayList<>();
+        for (ConstraintViolation<PerfumeDTO> violation : validator.validate(dto)) {
+            errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        String category = dto.getCategory() != null
+                ? CATEGORIES.get(dto.getCategory().strip().toLowerCase(Locale.ROOT)) : null;
+        if (dto.getCategory() != null && category == null) {
+            errors.add("category: debe ser Para Él, Para Ella o Unisex");
+        }
+        if (dto.getPrice() != null && dto.getPrice() < 0) {
+            errors.add("price: no puede ser negativo");
+        }
+        if (dto.getStock() != null && dto.getStock() < 0) {
+            errors.add("stock: no puede ser negativo");
+        }
+        if (!errors.isEmpty()) {
+            reject(result, number, errors);
+            return;
+        }
+        result.setTotal(result.getTotal() + 1);
+
+        dto.setName(dto.getName().strip());
+        dto.setBrand(dto.getBrand().strip());
+        if (dto.getNotes() != null) {
+            dto.setNotes(dto.getNotes().stream().map(String::strip).filter(note -> !note.isEmpty()).distinct().toList());
+        }
+        Row row = new Row(number, dto, category);
+        // Misma clave dos veces en un lote: se guarda antes la primera para respetar el orden del fichero
+        if (chunk.containsKey(row.key())) {
+            flush(chunk, result);
+        }
+        chunk.put(row.key(), row);
+        if (chunk.size() >= batchSize) {
+            flush(chunk, result);
+        }
+    }
+
+    private static void reject(ImportResultDTO result, long number, List<String> errors) {
+        result.setTotal(result.getTotal() + 1);
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new ImportResultDTO.RowErrorDTO(number, errors));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    private void flush(Map<String, Row> chunk, ImportResultDTO result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Row> rows = new ArrayList<>(chunk.values());
+        chunk.clear();
+        try {
+            write(rows, result);
+        } catch (DataAccessException e) {
+            if (rows.size() == 1) {
+                reject(result, rows.get(0).number(), List.of(rootMessage(e)));
+                return;
+            }
+            log.warn("Perfume import chunk failed, retrying row by row: {}", rootMessage(e));
+            for (Row row : rows) {
+                flush(new LinkedHashMap<>(Map.of(row.key(), row)), result);
+            }
+        }
+    }
+
+    private void write(List<Row> rows, ImportResultDTO result) {
+        Written written = tx.execute(status -> {
+            Map<String, Integer> existing = findIds(rows);
+            List<Object[]> inserts = new ArrayList<>();
+            List<Object[]> updates = new ArrayList<>();
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            for (Row row : rows) {
+                PerfumeDTO dto = row.dto();
+                Integer id = existing.get(row.key());
+                if (id == null) {
+                    inserts.add(new Object[]{dto.getName(), dto.getBrand(), dto.getPrice(), dto.getStock(),
+                            dto.getImageUrl(), dto.getDescription(), row.category(), dto.isPublished(), now});
+                } else {
+                    updates.add(new Object[]{dto.getPrice(), dto.getStock(), dto.getImageUrl(),
+                            dto.getDescription(), row.category(), dto.isPublished(), id});
+                }
+            }
+            jdbc.getJdbcTemplate().batchUpdate(INSERT_PERFUME, inserts);
+            jdbc.getJdbcTemplate().batchUpdate(UPDATE_PERFUME, updates);
+
+            // Los IDs generados no son fiables en batch con todos los drivers: se releen por clave
+            Map<String, Integer> ids = inserts.isEmpty() ? existing : findIds(rows);
+            List<Integer> updatedIds = List.copyOf(existing.values());
+            // Solo se reemplazan las notas de las filas que las traen (sin columna/campo se conservan)
+            List<Integer> replacedNotes = rows.stream()
+                    .filter(row -> row.dto().getNotes() != null && existing.containsKey(row.key()))
+                    .map(row -> existing.get(row.key()))
+                    .toList();
+            if (!replacedNotes.isEmpty()) {
+                jdbc.update(DELETE_NOTES, new MapSqlParameterSource("ids", replacedNotes));
+            }
+            List<Object[]> notes = new ArrayList<>();
+            for (Row row : rows) {
+                if (row.dto().getNotes() != null) {
+                    Integer id = ids.get(row.key());
+                    row.dto().getNotes().forEach(note -> notes.add(new Object[]{id, note}));
+                }
+            }
+            jdbc.getJdbcTemplate().batchUpdate(INSERT_NOTE, notes);
+
+            // Se entrega tras el commit: cachés, índices y snapshot ven el lote completo
+            eventPublisher.publishEvent(new PerfumeChangedEvent(List.copyOf(ids.values()),
+                    PerfumeChangedEvent.Type.UPSERTED));
+            return new Written(inserts.size(), updatedIds);
+        });
+        if (written != null) {
+            result.setInserted(result.getInserted() + written.inserted());
+            result.setUpdated(result.getUpdated() + written.updatedIds().size());
+            // El stock puede haber cambiado: el ledger lo recarga de BD
+            written.updatedIds().forEach(stockLedger::evict);
+        }
+    }
+
+    // (marca, nombre) → id de los perfumes del lote que ya existen
+    private Map<String, Integer> findIds(Collection<Row> rows) {
+        Map<String, Row> byKey = new HashMap<>();
+        rows.forEach(row -> byKey.put(row.key(), row));
+        // Pares (marca, nombre): la consulta va por el índice de la restricción única
+        List<Object[]> keys = rows.stream()
+                .map(row -> new Object[]{row.dto().getBrand(), row.dto().getName()})
+                .toList();
+        Map<String, Integer> ids = new HashMap<>();
+        jdbc.query(SELECT_KEYS, new MapSqlParameterSource("keys", keys), rs -> {
+            String key = key(rs.getString("brand"), rs.getString("name"));
+            if (byKey.containsKey(key)) {
+                ids.put(key, rs.getInt("id"));
+            }
+        });
+        return ids;
+    }
+
+    // Sin distinguir mayúsculas, como la collation por defecto de MySQL en la restricción única
+    private static String key(String brand, String name) {
+        return brand.toLowerCase(Locale.ROOT) + '\u0000' + name.toLowerCase(Locale.ROOT);
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+}
@@ -0,0 +1,218 @@
+package com.scentalux.service.impl;
+
+import com.scentalux.event.PerfumeChangedEvent;
+import com.scentalux.model.Perfume;
+import com.scentalux.repo.PerfumeRepository;
+import com.scentalux.util.TextNormalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice nota → bitset de IDs de perfumes publicados.
+ *
+ * Los IDs son autoincrementales y densos, así que un {@link BitSet} ocupa
+ * ~1 bit por perfume y las consultas AND/OR entre notas son operaciones por
+ * palabras de 64 bits. Las notas se comparan sin tildes ni mayúsculas.
+ *
+ * Se actualiza con {@link PerfumeChangedEvent}; los cambios de otra instancia se
+ * recogen en {@link #refresh()}, que relee los perfumes y solo reconstruye si
+ * cambiaron las notas o la publicación.
+ */
+@Slf4j
+@Component
+public class PerfumeNoteIndex {
+
+    private final PerfumeRepository repo;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, BitSet> perfumesByNote = new HashMap<>();
+    // perfume → notas indexadas, para poder desindexarlo
+    private final Map<Integer, Set<String>> notesByPerfume = new HashMap<>();
+
+    // Eventos recibidos: un refresco que leyó antes de uno de ellos no sustituye el índice
+    private final AtomicLong changes = new AtomicLong();
+    private volatile long fingerprint;
+
+    public record Result(List<Integer> ids, long total) {
+    }
+
+    public PerfumeNoteIndex(PerfumeRepository repo) {
+        this.repo = repo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Perfume> perfumes = repo.findAllWithNotesBy();
+        replaceAll(perfumes, -1);
+        fingerprint = fingerprint(perfumes);
+        log.info("Perfume note index built: {} notes", perfumesByNote.size());
+    }
+
+    @Scheduled(fixedDelayString = "${scentalux.catalog.refresh-interval-ms:60000}",
+            initialDelayString = "${scentalux.catalog.refresh-interval-ms:60000}")
+    public void refresh() {
+        long seen = changes.get();
+        List<Perfume> perfumes = repo.findAllWithNotesBy();
+        long current = fingerprint(perfumes);
+        if (current != fingerprint && replaceAll(perfumes, seen)) {
+            fingerprint = current;
+            log.debug("Perfume note index refreshed: {} notes", perfumesByNote.size());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPerfumeChanged(PerfumeChangedEvent event) {
+        changes.incrementAndGet();
+        switch (event.type()) {
+            case DELETED -> event.perfumeIds().forEach(this::remove);
+            case UPSERTED -> repo.findWithNotesByIdIn(event.perfumeIds()).forEach(this::index);
+            case STOCK_CHANGED -> {
+                // Las notas no cambian con el stock
+            }
+        }
+    }
+
+    // Con expectedChanges >= 0 no reemplaza nada si entretanto llegó un evento
+    private boolean replaceAll(List<Perfume> perfumes, long expectedChanges) {
+        lock.writeLock().lock();
+        try {
+            if (expectedChanges >= 0 && changes.get() != expectedChanges) {
+                return false;
+            }
+            perfumesByNote.clear();
+            notesByPerfume.clear();
+            perfumes.forEach(this::doIndex);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Notas y publicación, sin depender del orden (la colección de Hibernate se copia para comparar por contenido)
+    private static long fingerprint(Collection<Perfume> perfumes) {
+        long hash = 0;
+        for (Perfume perfume : perfumes) {
+            List<String> notes = perfume.getNotes() != null ? new ArrayList<>(perfume.getNotes()) : null;
+            hash += Objects.hash(perfume.getId(), notes, perfume.isPublished());
+        }
+        return hash;
+    }
+
+    public void index(Perfume perfume) {
+        lock.writeLock().lock();
+        try {
+            doIndex(perfume);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer perfumeId) {
+        lock.writeLock().lock();
+        try {
+            doRemove(perfumeId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Perfumes con todas las notas de {@code all} y al menos una de {@code any}
+     * (cualquiera de las dos listas puede venir vacía, no ambas). Más recientes primero.
+     */
+    public Result find(Collection<String> all, Collection<String> any, int page, int size) {
+        lock.readLock().lock();
+        BitSet matches;
+        try {
+            matches = null;
+            for (String note : all) {
+                BitSet perfumes = perfumesByNote.get(TextNormalizer.fold(note));
+                if (perfumes == null) {
+                    return new Result(List.of(), 0);
+                }
+                if (matches == null) {
+                    matches = (BitSet) perfumes.clone();
+                } else {
+                    matches.and(perfumes);
+                }
+            }
+            if (!any.isEmpty()) {
+                BitSet union = new BitSet();
+                for (String note : any) {
+                    BitSet perfumes = perfumesByNote.get(TextNormalizer.fold(note));
+                    if (perfumes != null) {
+                        union.or(perfumes);
+                    }
+                }
+                if (matches == null) {
+                    matches = union;
+                } else {
+                    matches.and(union);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (matches == null) {
+            return new Result(List.of(), 0);
+        }
+
+        long skip = (long) page * size;
+        List<Integer> ids = new ArrayList<>(size);
+        for (int id = matches.length() - 1; id >= 0 && ids.size() < size; id = matches.previousSetBit(id - 1)) {
+            if (skip > 0) {
+                skip--;
+            } else {
+                ids.add(id);
+            }
+        }
+        return new Result(ids, matches.cardinality());
+    }
+
+    private void doIndex(Perfume perfume) {
+        doRemove(perfume.getId());
+        if (!perfume.isPublished() || perfume.getNotes() == null) {
+            return;
+        }
+        Set<String> notes = new HashSet<>();
+        for (String note : perfume.getNotes()) {
+            String folded = TextNormalizer.fold(note);
+            if (!folded.isEmpty()) {
+                notes.add(folded);
+                perfumesByNote.computeIfAbsent(folded, key -> new BitSet()).set(perfume.getId());
+            }
+        }
+        notesByPerfume.put(perfume.getId(), notes);
+    }
+
+    private void doRemove(Integer perfumeId) {
+        Set<String> previous = notesByPerfume.remove(perfumeId);
+        if (previous == null) {
+            return;
+        }
+        for (String note : previous) {
+            BitSet perfumes = perfumesByNote.get(note);
+            perfumes.clear(perfumeId);
+            if (perfumes.isEmpty()) {
+                perfumesByNote.remove(note);
+            }
+        }
+    }
+}
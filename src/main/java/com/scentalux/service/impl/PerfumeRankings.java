@@ -0,0 +1,183 @@
+package com.scentalux.service.impl;
+
+import com.scentalux.event.PerfumeChangedEvent;
+import com.scentalux.repo.IOrderItemRepo;
+import com.scentalux.repo.IPerfumeSalesRepo;
+import com.scentalux.repo.PerfumeRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Rankings "más vendidos" y "novedades" para los carruseles de la tienda.
+ *
+ * Las ventas se acumulan por perfume en {@code perfume_sales}, así que nunca hace
+ * falta agregar {@code order_items}. Un pedido no toca esa tabla en su transacción
+ * (bloquearía las filas de los perfumes más vendidos hasta el commit): al confirmarse
+ * suma sus unidades a un acumulado en memoria que {@link #flushSales()} vuelca en
+ * una transacción corta, una fila por perfume. Si la instancia cae antes del
+ * volcado se pierden como mucho las ventas de ese intervalo; el ranking es orientativo.
+ *
+ * Los top-K se guardan en memoria: más vendidos se refresca periódicamente y
+ * novedades cuando cambia algún perfume. Leer un ranking es copiar como mucho K ids.
+ */
+@Slf4j
+@Component
+public class PerfumeRankings {
+
+    private final IPerfumeSalesRepo salesRepo;
+    private final IOrderItemRepo orderItemRepo;
+    private final PerfumeRepository perfumeRepo;
+    private final TransactionTemplate tx;
+    private final int size;
+
+    // Unidades vendidas (o devueltas, en negativo) ya confirmadas y aún sin volcar
+    private final Map<Integer, Long> pendingSales = new ConcurrentHashMap<>();
+
+    private volatile List<Integer> bestSellers = List.of();
+    private volatile List<Integer> newArrivals = List.of();
+
+    public PerfumeRankings(IPerfumeSalesRepo salesRepo,
+                           IOrderItemRepo orderItemRepo,
+                           PerfumeRepository perfumeRepo,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${scentalux.rankings.size:50}") int size) {
+        this.salesRepo = salesRepo;
+        this.orderItemRepo = orderItemRepo;
+        this.perfumeRepo = perfumeRepo;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public List<Integer> bestSellers(int limit) {
+        List<Integer> ids = bestSellers;
+        return ids.subList(0, Math.min(limit, ids.size()));
+    }
+
+    public List<Integer> newArrivals(int limit) {
+        List<Integer> ids = newArrivals;
+        return ids.subList(0, Math.min(limit, ids.size()));
+    }
+
+    /** Suma las unidades de un pedido nuevo cuando su transacción se confirma. */
+    public void recordSale(Map<Integer, Integer> quantities) {
+        Map<Integer, Integer> units = Map.copyOf(quantities);
+        afterCommit(() -> units.forEach((perfumeId, quantity) ->
+                pendingSales.merge(perfumeId, (long) quantity, Long::sum)));
+    }
+
+    /** Descuenta las unidades de pedidos cancelados o borrados; antes de borrar sus items. */
+    public void reverseSales(Collection<Integer> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        Map<Integer, Long> units = orderItemRepo.sumQuantitiesByOrderIdIn(orderIds).stream()
+                .collect(Collectors.toMap(IOrderItemRepo.SoldQuantity::getPerfumeId,
+                        IOrderItemRepo.SoldQuantity::getQuantity));
+        afterCommit(() -> units.forEach((perfumeId, quantity) ->
+                pendingSales.merge(perfumeId, -quantity, Long::sum)));
+    }
+
+    // Vuelca el acumulado en una transacción corta; en orden de id para bloquear siempre igual
+    @Scheduled(fixedDelayString = "${scentalux.rankings.sales-flush-interval-ms:1000}")
+    public void flushSales() {
+        Map<Integer, Long> deltas = new TreeMap<>();
+        // remove() por clave: una venta que llega a la vez crea una entrada nueva, no se pierde
+        for (Integer perfumeId : pendingSales.keySet()) {
+            Long delta = pendingSales.remove(perfumeId);
+            if (delta != null && delta != 0) {
+                deltas.put(perfumeId, delta);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            tx.executeWithoutResult(status -> deltas.forEach((perfumeId, delta) -> {
+                if (delta > 0) {
+                    salesRepo.addSold(perfumeId, delta);
+                } else {
+                    salesRepo.subtractSold(perfumeId, -delta);
+                }
+            }));
+        } catch (RuntimeException e) {
+            deltas.forEach((perfumeId, delta) -> pendingSales.merge(perfumeId, delta, Long::sum));
+            log.warn("Could not flush perfume sales, retrying later: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flushSales();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        // Dos instancias pueden ver la tabla vacía a la vez: backfill() sobrescribe, no suma
+        if (salesRepo.count() == 0) {
+            Integer rows = tx.execute(status -> salesRepo.backfill());
+            log.info("Perfume sales rollup backfilled: {} perfumes", rows);
+        }
+        refreshBestSellers();
+        refreshNewArrivals();
+    }
+
+    @Scheduled(fixedDelayString = "${scentalux.rankings.refresh-interval-ms:60000}")
+    public void refreshBestSellers() {
+        bestSellers = List.copyOf(salesRepo.findTopSellerIds(PageRequest.of(0, size)));
+    }
+
+    // Un perfume nuevo, despublicado o borrado cambia las novedades (y puede sacar uno de más vendidos)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPerfumeChanged(PerfumeChangedEvent event) {
+        if (event.type() == PerfumeChangedEvent.Type.STOCK_CHANGED) {
+            return;
+        }
+        refreshNewArrivals();
+        if (bestSellers.stream().anyMatch(event.perfumeIds()::contains)) {
+            refreshBestSellers();
+        }
+    }
+
+    // Sin transacción activa (p. ej. tests) se aplica en el acto
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void refreshNewArrivals() {
+        newArrivals = List.copyOf(perfumeRepo.findNewestPublishedIds(PageRequest.of(0, size)));
+    }
+}
@@ -0,0 +1,496 @@
+package com.scentalux.service.impl;
+
+import com.scentalux.event.PerfumeChangedEvent;
+import com.scentalux.model.Perfume;
+import com.scentalux.repo.PerfumeRepository;
+import com.scentalux.util.TextNormalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria sobre los perfumes publicados.
+ *
+ * Indexa nombre, marca, descripción y notas, sin tildes ni mayúsculas
+ * ("Él" → "el", "Ñ" → "n"). Cada término guarda sus perfumes como arrays de IDs
+ * ordenados con el peso de los campos donde aparece, así la intersección es un
+ * merge lineal sin boxing. Una búsqueda exige todos los términos y el último se
+ * trata como prefijo, para autocompletar mientras se escribe.
+ *
+ * Se construye al arrancar y se actualiza con {@link PerfumeChangedEvent}. Los
+ * cambios hechos en otra instancia no llegan como evento: {@link #refresh()} relee
+ * los perfumes periódicamente y solo reindexa si el contenido indexado cambió.
+ */
+@Slf4j
+@Component
+public class PerfumeSearchIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{Alnum}]+");
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int BRAND_WEIGHT = 2;
+    private static final int NOTE_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    // A partir de esta diferencia de tamaños se busca con binarySearch en vez de recorrer ambas listas
+    private static final int GALLOP_RATIO = 16;
+
+    private final PerfumeRepository repo;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // término → perfumes que lo contienen
+    private final NavigableMap<String, Postings> postings = new TreeMap<>();
+    // perfume → términos, para poder desindexarlo
+    private final Map<Integer, Set<String>> terms = new HashMap<>();
+    private int maxId;
+
+    // Eventos recibidos: un refresco que leyó antes de uno de ellos no sustituye el índice
+    private final AtomicLong changes = new AtomicLong();
+    private volatile long fingerprint;
+
+    public record Result(List<Integer> ids, long total) {
+    }
+
+    // IDs ascendentes y su peso (arrays inmutables: una modificación crea otra instancia)
+    private record Postings(int[] ids, int[] weights) {
+
+        static final Postings EMPTY = new Postings(new int[0], new int[0]);
+
+        int size() {
+            return ids.length;
+        }
+
+        Postings with(int id, int weight) {
+            int pos = Arrays.binarySearch(ids, id);
+            if (pos >= 0) {
+                int[] newWeights = weights.clone();
+                newWeights[pos] = weight;
+                return new Postings(ids, newWeights);
+            }
+            int at = -pos - 1;
+            int[] newIds = new int[ids.length + 1];
+            int[] newWeights = new int[ids.length + 1];
+            System.arraycopy(ids, 0, newIds, 0, at);
+            System.arraycopy(weights, 0, newWeights, 0, at);
+            newIds[at] = id;
+            newWeights[at] = weight;
+            System.arraycopy(ids, at, newIds, at + 1, ids.length - at);
+            System.arraycopy(weights, at, newWeights, at + 1, ids.length - at);
+            return new Postings(newIds, newWeights);
+        }
+
+        // Quita todos los ids de changed y mezcla los añadidos (ya ordenados) en una pasada
+        Postings replace(Set<Integer> changed, SortedMap<Integer, Integer> added) {
+            int[] newIds = new int[ids.length + added.size()];
+            int[] newWeights = new int[newIds.length];
+            Iterator<Map.Entry<Integer, Integer>> pending = added.entrySet().iterator();
+            Map.Entry<Integer, Integer> next = pending.hasNext() ? pending.next() : null;
+            int n = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (changed.contains(ids[i])) {
+                    continue;
+                }
+                while (next != null && next.getKey() < ids[i]) {
+                    newIds[n] = next.getKey();
+                    newWeights[n++] = next.getValue();
+                    next = pending.hasNext() ? pending.next() : null;
+                }
+                newIds[n] = ids[i];
+                newWeights[n++] = weights[i];
+            }
+            while (next != null) {
+                newIds[n] = next.getKey();
+                newWeights[n++] = next.getValue();
+                next = pending.hasNext() ? pending.next() : null;
+            }
+            return new Postings(Arrays.copyOf(newIds, n), Arrays.copyOf(newWeights, n));
+        }
+
+        Postings without(int id) {
+            int pos = Arrays.binarySearch(ids, id);
+            if (pos < 0) {
+                return this;
+            }
+            int[] newIds = new int[ids.length - 1];
+            int[] newWeights = new int[ids.length - 1];
+            System.arraycopy(ids, 0, newIds, 0, pos);
+            System.arraycopy(weights, 0, newWeights, 0, pos);
+            System.arraycopy(ids, pos + 1, newIds, pos, ids.length - pos - 1);
+            System.arraycopy(weights, pos + 1, newWeights, pos, ids.length - pos - 1);
+            return new Postings(newIds, newWeights);
+        }
+    }
+
+    public PerfumeSearchIndex(PerfumeRepository repo) {
+        this.repo = repo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Perfume> perfumes = repo.findAllWithNotesBy();
+        indexAll(perfumes);
+        fingerprint = fingerprint(perfumes);
+        log.info("Perfume search index built: {} perfumes, {} terms", terms.size(), postings.size());
+    }
+
+    @Scheduled(fixedDelayString = "${scentalux.catalog.refresh-interval-ms:60000}",
+            initialDelayString = "${scentalux.catalog.refresh-interval-ms:60000}")
+    public void refresh() {
+        long seen = changes.get();
+        List<Perfume> perfumes = repo.findAllWithNotesBy();
+        long current = fingerprint(perfumes);
+        if (current == fingerprint) {
+            return;
+        }
+        if (indexAll(perfumes, seen)) {
+            fingerprint = current;
+            log.debug("Perfume search index refreshed: {} perfumes", terms.size());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPerfumeChanged(PerfumeChangedEvent event) {
+        changes.incrementAndGet();
+        switch (event.type()) {
+            case DELETED -> event.perfumeIds().forEach(this::remove);
+            case UPSERTED -> index(repo.findWithNotesByIdIn(event.perfumeIds()));
+            case STOCK_CHANGED -> {
+                // El stock no forma parte del texto indexado
+            }
+        }
+    }
+
+    // Reemplaza el índice completo; las listas se construyen una sola vez por término
+    public void indexAll(Collection<Perfume> perfumes) {
+        indexAll(perfumes, -1);
+    }
+
+    // Con expectedChanges >= 0 no reemplaza nada si entretanto llegó un evento (devuelve false)
+    private boolean indexAll(Collection<Perfume> perfumes, long expectedChanges) {
+        Map<String, Map<Integer, Integer>> building = new HashMap<>();
+        Map<Integer, Set<String>> newTerms = new HashMap<>();
+        int newMaxId = 0;
+        for (Perfume perfume : perfumes) {
+            if (!perfume.isPublished()) {
+                continue;
+            }
+            Map<String, Integer> weights = weigh(perfume);
+            weights.forEach((term, weight) ->
+                    building.computeIfAbsent(term, key -> new HashMap<>()).put(perfume.getId(), weight));
+            newTerms.put(perfume.getId(), weights.keySet());
+            newMaxId = Math.max(newMaxId, perfume.getId());
+        }
+
+        NavigableMap<String, Postings> newPostings = new TreeMap<>();
+        building.forEach((term, docs) -> {
+            int[] ids = docs.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            int[] weights = new int[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                weights[i] = docs.get(ids[i]);
+            }
+            newPostings.put(term, new Postings(ids, weights));
+        });
+
+        lock.writeLock().lock();
+        try {
+            if (expectedChanges >= 0 && changes.get() != expectedChanges) {
+                return false;
+            }
+            postings.clear();
+            postings.putAll(newPostings);
+            terms.clear();
+            terms.putAll(newTerms);
+            maxId = newMaxId;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Solo los campos indexados (un cambio de precio o stock no obliga a reindexar), sin depender del orden.
+    // Las notas se copian: la colección de Hibernate no define hashCode por contenido
+    private static long fingerprint(Collection<Perfume> perfumes) {
+        long hash = 0;
+        for (Perfume perfume : perfumes) {
+            List<String> notes = perfume.getNotes() != null ? new ArrayList<>(perfume.getNotes()) : null;
+            hash += Objects.hash(perfume.getId(), perfume.getName(), perfume.getBrand(),
+                    perfume.getDescription(), notes, perfume.isPublished());
+        }
+        return hash;
+    }
+
+    public void index(Perfume perfume) {
+        lock.writeLock().lock();
+        try {
+            doRemove(perfume.getId());
+            if (!perfume.isPublished()) {
+                return;
+            }
+            Map<String, Integer> weights = weigh(perfume);
+            weights.forEach((term, weight) ->
+                    postings.put(term, postings.getOrDefault(term, Postings.EMPTY).with(perfume.getId(), weight)));
+            terms.put(perfume.getId(), weights.keySet());
+            maxId = Math.max(maxId, perfume.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Varios perfumes a la vez (p. ej. una importación): cada lista afectada se reescribe una sola vez
+    public void index(Collection<Perfume> perfumes) {
+        Set<Integer> changed = new HashSet<>();
+        Map<String, TreeMap<Integer, Integer>> added = new HashMap<>();
+        Map<Integer, Set<String>> newTerms = new HashMap<>();
+        for (Perfume perfume : perfumes) {
+            changed.add(perfume.getId());
+            if (perfume.isPublished()) {
+                Map<String, Integer> weights = weigh(perfume);
+                weights.forEach((term, weight) ->
+                        added.computeIfAbsent(term, key -> new TreeMap<>()).put(perfume.getId(), weight));
+                newTerms.put(perfume.getId(), weights.keySet());
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            Set<String> affected = new HashSet<>(added.keySet());
+            for (Integer id : changed) {
+                Set<String> previous = terms.remove(id);
+                if (previous != null) {
+                    affected.addAll(previous);
+                }
+            }
+            for (String term : affected) {
+                Postings merged = postings.getOrDefault(term, Postings.EMPTY)
+                        .replace(changed, added.getOrDefault(term, new TreeMap<>()));
+                if (merged.size() == 0) {
+                    postings.remove(term);
+                } else {
+                    postings.put(term, merged);
+                }
+            }
+            terms.putAll(newTerms);
+            newTerms.keySet().forEach(id -> maxId = Math.max(maxId, id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer perfumeId) {
+        lock.writeLock().lock();
+        try {
+            doRemove(perfumeId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Result search(String query, int page, int size) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (queryTerms.isEmpty()) {
+            return new Result(List.of(), 0);
+        }
+        String prefix = queryTerms.remove(queryTerms.size() - 1);
+
+        lock.readLock().lock();
+        try {
+            List<Postings> matches = new ArrayList<>(queryTerms.size() + 1);
+            for (String term : queryTerms) {
+                matches.add(postings.getOrDefault(term, Postings.EMPTY));
+            }
+            matches.add(prefixMatches(prefix));
+            // Se intersecta empezando por la lista más corta
+            matches.sort(Comparator.comparingInt(Postings::size));
+
+            Postings hits = matches.get(0);
+            for (int i = 1; i < matches.size() && hits.size() > 0; i++) {
+                hits = intersect(hits, matches.get(i));
+            }
+            return new Result(top(hits, page, size), hits.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Minúsculas, sin tildes ni signos
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(TextNormalizer.fold(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static Map<String, Integer> weigh(Perfume perfume) {
+        Map<String, Integer> weights = new HashMap<>();
+        addField(weights, perfume.getName(), NAME_WEIGHT);
+        addField(weights, perfume.getBrand(), BRAND_WEIGHT);
+        addField(weights, perfume.getDescription(), DESCRIPTION_WEIGHT);
+        if (perfume.getNotes() != null) {
+            perfume.getNotes().forEach(note -> addField(weights, note, NOTE_WEIGHT));
+        }
+        return weights;
+    }
+
+    // Un campo suma su peso una vez por término, aunque el término se repita
+    private static void addField(Map<String, Integer> weights, String text, int weight) {
+        for (String term : new HashSet<>(tokenize(text))) {
+            weights.merge(term, weight, Integer::sum);
+        }
+    }
+
+    private void doRemove(Integer perfumeId) {
+        Set<String> previous = terms.remove(perfumeId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous) {
+            Postings remaining = postings.get(term).without(perfumeId);
+            if (remaining.size() == 0) {
+                postings.remove(term);
+            } else {
+                postings.put(term, remaining);
+            }
+        }
+    }
+
+    private Postings prefixMatches(String prefix) {
+        NavigableMap<String, Postings> range = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (range.isEmpty()) {
+            return Postings.EMPTY;
+        }
+        if (range.firstKey().equals(range.lastKey())) {
+            return range.firstEntry().getValue();
+        }
+        // Unión de varios términos: acumulador denso por ID, se queda el mejor peso
+        int[] best = new int[maxId + 1];
+        int count = 0;
+        for (Postings docs : range.values()) {
+            for (int i = 0; i < docs.ids.length; i++) {
+                int id = docs.ids[i];
+                if (best[id] == 0) {
+                    count++;
+                }
+                best[id] = Math.max(best[id], docs.weights[i]);
+            }
+        }
+        int[] ids = new int[count];
+        int[] weights = new int[count];
+        for (int id = 0, n = 0; n < count; id++) {
+            if (best[id] > 0) {
+                ids[n] = id;
+                weights[n++] = best[id];
+            }
+        }
+        return new Postings(ids, weights);
+    }
+
+    // Intersección de listas ordenadas; los pesos se suman
+    private static Postings intersect(Postings smaller, Postings larger) {
+        int[] ids = new int[smaller.size()];
+        int[] weights = new int[smaller.size()];
+        int n = 0;
+        if (larger.size() / Math.max(smaller.size(), 1) >= GALLOP_RATIO) {
+            int from = 0;
+            for (int i = 0; i < smaller.size() && from < larger.size(); i++) {
+                int pos = Arrays.binarySearch(larger.ids, from, larger.size(), smaller.ids[i]);
+                if (pos >= 0) {
+                    ids[n] = smaller.ids[i];
+                    weights[n++] = smaller.weights[i] + larger.weights[pos];
+                    from = pos + 1;
+                } else {
+                    from = -pos - 1;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < smaller.size() && j < larger.size()) {
+                int a = smaller.ids[i];
+                int b = larger.ids[j];
+                if (a == b) {
+                    ids[n] = a;
+                    weights[n++] = smaller.weights[i++] + larger.weights[j++];
+                } else if (a < b) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+        }
+        return new Postings(Arrays.copyOf(ids, n), Arrays.copyOf(weights, n));
+    }
+
+    /**
+     * Página de resultados por peso descendente e ID ascendente. Los pesos son
+     * enteros pequeños, así que con un histograma se obtiene el peso de corte y
+     * solo se ordenan los (page + 1) * size candidatos.
+     */
+    private static List<Integer> top(Postings hits, int page, int size) {
+        long offset = (long) page * size;
+        if (offset >= hits.size()) {
+            return List.of();
+        }
+        long limit = Math.min(offset + size, hits.size());
+
+        int max = 0;
+        for (int weight : hits.weights) {
+            max = Math.max(max, weight);
+        }
+        int[] histogram = new int[max + 1];
+        for (int weight : hits.weights) {
+            histogram[weight]++;
+        }
+        int threshold = max;
+        long above = 0;
+        while (above + histogram[threshold] < limit) {
+            above += histogram[threshold--];
+        }
+
+        // Todos los que superan el corte y, del peso de corte, los de menor ID
+        long atThreshold = limit - above;
+        long[] ranked = new long[(int) limit];
+        int n = 0;
+        for (int i = 0; i < hits.size() && n < limit; i++) {
+            int weight = hits.weights[i];
+            if (weight > threshold || (weight == threshold && atThreshold-- > 0)) {
+                ranked[n++] = ((long) (max - weight) << 32) | hits.ids[i];
+            }
+        }
+        Arrays.sort(ranked, 0, n);
+
+        List<Integer> ids = new ArrayList<>(size);
+        for (int i = (int) offset; i < n; i++) {
+            ids.add((int) ranked[i]);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,54 @@
+package com.scentalux.service.impl;
+
+import com.scentalux.service.OrderNumberGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generador estilo Snowflake: 41 bits de milisegundos desde 2024-01-01,
+ * 10 bits de nodo ({@code scentalux.order.node-id}) y 12 bits de secuencia.
+ *
+ * Sin locks: el par (timestamp, secuencia) vive en un único AtomicLong que se
+ * avanza con CAS. Si la secuencia se agota en un milisegundo o el reloj retrocede,
+ * se sigue desde el último valor emitido, así los IDs nunca se repiten ni decrecen.
+ */
+@Component
+public class SnowflakeOrderNumberGenerator implements OrderNumberGenerator {
+
+    private static final String PREFIX = "ORD";
+    private static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private final long nodeBits;
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeOrderNumberGenerator(@Value("${scentalux.order.node-id:0}") long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeBits = nodeId << SEQUENCE_BITS;
+    }
+
+    @Override
+    public String nextOrderNumber() {
+        return PREFIX + nextId();
+    }
+
+    public long nextId() {
+        while (true) {
+            long last = state.get();
+            long now = System.currentTimeMillis() - EPOCH;
+            long next = now > (last >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : last + 1;
+            if (state.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+            }
+        }
+    }
+}
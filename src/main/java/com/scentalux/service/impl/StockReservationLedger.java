@@ -0,0 +1,262 @@
+package com.scentalux.service.impl;
+
+import com.scentalux.event.PerfumeChangedEvent;
+import com.scentalux.repo.IOrderItemRepo;
+import com.scentalux.repo.PerfumeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ledger de reservas de stock en memoria (modo de una sola instancia).
+ *
+ * Cada perfume tiene un contador de unidades disponibles que se reserva con CAS,
+ * así el checkout no bloquea la fila de {@code perfumes}. Los items creados con
+ * {@code stockApplied = false} se descuentan de la BD en lotes periódicos, y el
+ * contador se reconstruye como {@code stock - items pendientes}, por lo que un
+ * reinicio no pierde reservas.
+ *
+ * Las reservas de transacciones aún abiertas no se ven en BD: se llevan como
+ * unidades "en vuelo" y la recarga de un contador las resta. Reservar y recargar
+ * se excluyen con un lock de lectura/escritura por perfume. Una recarga entre el
+ * commit de un pedido y su afterCompletion lo resta dos veces: el contador se
+ * queda corto (nunca vende de más) hasta la siguiente recarga.
+ *
+ * Solo es seguro con una instancia de la API; por eso viene desactivado
+ * ({@code scentalux.stock.ledger.enabled}).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockReservationLedger {
+
+    private final PerfumeRepository perfumeRepo;
+    private final IOrderItemRepo orderItemRepo;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${scentalux.stock.ledger.enabled:false}")
+    private boolean enabled;
+
+    @Value("${scentalux.stock.ledger.flush-batch-size:500}")
+    private int flushBatchSize = 500;
+
+    private final ConcurrentHashMap<Integer, Slot> slots = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reserva todas las líneas o ninguna. Dentro de una transacción las unidades
+     * quedan en vuelo hasta que termina, y vuelven al contador si no se confirma.
+     *
+     * @return vacío si se reservó todo; si no, el ID del primer perfume sin stock suficiente
+     */
+    public Optional<Integer> tryReserve(Map<Integer, Integer> quantities) {
+        boolean transactional = TransactionSynchronizationManager.isSynchronizationActive();
+        List<Reservation> reserved = new ArrayList<>(quantities.size());
+        for (Map.Entry<Integer, Integer> line : quantities.entrySet()) {
+            Reservation reservation = reserve(line.getKey(), line.getValue(), transactional);
+            if (reservation == null) {
+                reserved.forEach(r -> r.complete(false, transactional));
+                return Optional.of(line.getKey());
+            }
+            reserved.add(reservation);
+        }
+        if (transactional) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    reserved.forEach(r -> r.complete(status == STATUS_COMMITTED, true));
+                }
+            });
+        }
+        return Optional.empty();
+    }
+
+    public int available(Integer perfumeId) {
+        Slot slot = slot(perfumeId);
+        slot.lock.readLock().lock();
+        try {
+            return counter(slot, perfumeId).get();
+        } finally {
+            slot.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Descarta el contador para que se recargue desde BD (p. ej. tras editar el stock a mano).
+     * Dentro de una transacción espera al commit: antes, la recarga leería el stock anterior.
+     */
+    public void evict(Integer perfumeId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    discard(perfumeId);
+                }
+            });
+        } else {
+            discard(perfumeId);
+        }
+    }
+
+    private void discard(Integer perfumeId) {
+        Slot slot = slots.get(perfumeId);
+        if (slot == null) {
+            return;
+        }
+        slot.lock.writeLock().lock();
+        try {
+            slot.available = null;
+        } finally {
+            slot.lock.writeLock().unlock();
+        }
+    }
+
+    // Descuenta en BD los items pendientes, agrupando por perfume
+    @Scheduled(fixedDelayString = "${scentalux.stock.ledger.flush-interval-ms:1000}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int flushed;
+        do {
+            Integer count = tx.execute(status -> flushChunk());
+            flushed = count != null ? count : 0;
+        } while (flushed == flushBatchSize);
+    }
+
+    private int flushChunk() {
+        List<IOrderItemRepo.PendingStock> pending = orderItemRepo.findPendingStock(PageRequest.of(0, flushBatchSize));
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        Map<Integer, Integer> deltas = new HashMap<>();
+        List<Integer> itemIds = new ArrayList<>(pending.size());
+        for (IOrderItemRepo.PendingStock row : pending) {
+            deltas.merge(row.getPerfumeId(), row.getQuantity(), Integer::sum);
+            itemIds.add(row.getId());
+        }
+
+        deltas.forEach(perfumeRepo::applyStockDelta);
+        orderItemRepo.markStockApplied(itemIds);
+        eventPublisher.publishEvent(new PerfumeChangedEvent(List.copyOf(deltas.keySet()),
+                PerfumeChangedEvent.Type.STOCK_CHANGED));
+        log.debug("Stock ledger flushed {} items over {} perfumes", itemIds.size(), deltas.size());
+        return pending.size();
+    }
+
+    // Con el lock de lectura: una recarga no puede colarse entre la reserva y el registro en vuelo
+    private Reservation reserve(Integer perfumeId, int quantity, boolean transactional) {
+        Slot slot = slot(perfumeId);
+        slot.lock.readLock().lock();
+        try {
+            AtomicInteger counter = counter(slot, perfumeId);
+            if (!tryReserve(counter, quantity)) {
+                return null;
+            }
+            if (transactional) {
+                slot.inFlight.addAndGet(quantity);
+            }
+            return new Reservation(slot, counter, quantity);
+        } finally {
+            slot.lock.readLock().unlock();
+        }
+    }
+
+    private TransactionTemplate reloadTx() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        tx.setReadOnly(true);
+        return tx;
+    }
+
+    private Slot slot(Integer perfumeId) {
+        return slots.computeIfAbsent(perfumeId, id -> new Slot());
+    }
+
+    // Llamar con el lock de lectura tomado; si el contador se descartó, se recarga con el de escritura
+    private AtomicInteger counter(Slot slot, Integer perfumeId) {
+        AtomicInteger counter = slot.available;
+        if (counter != null) {
+            return counter;
+        }
+        slot.lock.readLock().unlock();
+        slot.lock.writeLock().lock();
+        try {
+            if (slot.available == null) {
+                // En su propia transacción: la del pedido puede tener una instantánea anterior al commit que lo descartó
+                Long stock = reloadTx().execute(status -> perfumeRepo.findAvailableStock(perfumeId));
+                int committed = stock != null ? stock.intValue() : 0;
+                slot.available = new AtomicInteger(committed - slot.inFlight.get());
+            }
+            // Se baja a lectura sin soltar el lock: nadie puede descartarlo entretanto
+            slot.lock.readLock().lock();
+            return slot.available;
+        } finally {
+            slot.lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean tryReserve(AtomicInteger counter, int quantity) {
+        while (true) {
+            int current = counter.get();
+            if (current < quantity) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+
+    // Contador vigente de un perfume (null = descartado) y sus unidades en vuelo
+    private static final class Slot {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private AtomicInteger available;
+    }
+
+    private record Reservation(Slot slot, AtomicInteger counter, int quantity) {
+
+        // Sin commit las unidades vuelven al contador vigente: si se recargó mientras estaban
+        // en vuelo, ya las había restado. Fuera de transacción no constan en vuelo y solo
+        // vuelven al contador del que salieron.
+        void complete(boolean committed, boolean transactional) {
+            slot.lock.readLock().lock();
+            try {
+                AtomicInteger current = slot.available;
+                if (!committed && current != null && (transactional || current == counter)) {
+                    current.addAndGet(quantity);
+                }
+                if (transactional) {
+                    slot.inFlight.addAndGet(-quantity);
+                }
+            } finally {
+                slot.lock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -53,7 +53,7 @@ public class CORS implements Filter {
         response.setHeader("Access-Control-Max-Age", "3600");
 
         // Set allowed headers
-        response.setHeader("Access-Control-Allow-Headers", "x-requested-with, authorization, Content-Type, Authorization, credential, X-XSRF-TOKEN");
+        response.setHeader("Access-Control-Allow-Headers", "x-requested-with, authorization, Content-Type, Authorization, credential, X-XSRF-TOKEN, Idempotency-Key");
 
         // Handle pre-flight OPTIONS request
         if ("OPTIONS".equalsIgnoreCase(request.getMethod())) {
@@ -0,0 +1,33 @@
+-- Normaliza orders.status antes de mapearlo como enum (OrderStatus, @Enumerated STRING).
+--
+-- Hasta ahora el estado era texto libre (VARCHAR(50)) y se guardaba tal cual llegaba
+-- en PUT /orders/{id}/status. Con el enum, Hibernate no puede leer un pedido cuyo
+-- estado no sea exactamente PENDIENTE, CONFIRMADO, ENVIADO, ENTREGADO o CANCELADO.
+-- ddl-auto=update no modifica columnas existentes, así que este script se ejecuta
+-- a mano (MySQL 8.0.16+) antes de desplegar la versión con el enum.
+--
+-- 1. Mayúsculas, sin espacios alrededor y las formas en femenino ("orden confirmada").
+-- 2. Los valores que sigan sin reconocerse hacen fallar el paso 3: se listan con la
+--    consulta de abajo y se corrigen a mano, no se adivinan.
+-- 3. CHECK con los estados válidos (también protege las escrituras futuras).
+-- 4. Cambio de columna: VARCHAR(50) NULL -> VARCHAR(20) NOT NULL, como en Order.status.
+
+UPDATE orders SET status = UPPER(TRIM(status))
+WHERE status IS NOT NULL AND status <> UPPER(TRIM(status));
+
+UPDATE orders SET status = CASE status
+        WHEN 'CONFIRMADA' THEN 'CONFIRMADO'
+        WHEN 'ENVIADA' THEN 'ENVIADO'
+        WHEN 'ENTREGADA' THEN 'ENTREGADO'
+        WHEN 'CANCELADA' THEN 'CANCELADO'
+    END
+WHERE status IN ('CONFIRMADA', 'ENVIADA', 'ENTREGADA', 'CANCELADA');
+
+-- Pedidos con estados desconocidos (si devuelve filas, el paso 3 fallará):
+-- SELECT id, order_number, status FROM orders
+-- WHERE status IS NULL OR status NOT IN ('PENDIENTE', 'CONFIRMADO', 'ENVIADO', 'ENTREGADO', 'CANCELADO');
+
+ALTER TABLE orders ADD CONSTRAINT chk_orders_status
+    CHECK (status IN ('PENDIENTE', 'CONFIRMADO', 'ENVIADO', 'ENTREGADO', 'CANCELADO'));
+
+ALTER TABLE orders MODIFY status VARCHAR(20) NOT NULL;
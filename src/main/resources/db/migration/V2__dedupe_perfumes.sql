@@ -0,0 +1,53 @@
+-- Fusiona perfumes duplicados por (brand, name) antes de crear uk_perfumes_brand_name.
+--
+-- Con duplicados en la tabla, ddl-auto=update no puede crear la restricción única y
+-- el arranque falla. Este script se ejecuta a mano (MySQL) antes de desplegar la
+-- versión con la restricción. La comparación usa la collation de las columnas, la
+-- misma que aplicará el índice único (sin distinguir mayúsculas con la de por defecto).
+--
+-- De cada grupo se conserva el id más bajo (el más antiguo):
+-- 1. Suma el stock de los duplicados y queda publicado si alguno lo estaba.
+-- 2. Los items de pedidos pasan a apuntar al perfume conservado.
+-- 3. Las notas que solo tenían los duplicados se copian; el resto se descartan.
+-- 4. Se borran los duplicados y se crea la restricción.
+--
+-- Se usa una tabla normal y no TEMPORARY: MySQL no deja abrir una tabla temporal
+-- dos veces en la misma sentencia.
+
+CREATE TABLE perfume_duplicates AS
+SELECT p.id AS duplicate_id, k.keep_id, p.stock, p.published
+FROM perfumes p
+JOIN (SELECT brand, name, MIN(id) AS keep_id
+      FROM perfumes
+      GROUP BY brand, name
+      HAVING COUNT(*) > 1) k ON p.brand = k.brand AND p.name = k.name AND p.id <> k.keep_id;
+
+UPDATE perfumes SET stock = stock + (SELECT SUM(d.stock) FROM perfume_duplicates d WHERE d.keep_id = perfumes.id)
+WHERE id IN (SELECT keep_id FROM perfume_duplicates);
+
+UPDATE perfumes SET published = TRUE
+WHERE id IN (SELECT keep_id FROM perfume_duplicates WHERE published);
+
+UPDATE order_items SET perfume_id = (SELECT d.keep_id FROM perfume_duplicates d WHERE d.duplicate_id = order_items.perfume_id)
+WHERE perfume_id IN (SELECT duplicate_id FROM perfume_duplicates);
+
+INSERT INTO perfume_notes (perfume_id, note)
+SELECT DISTINCT d.keep_id, n.note
+FROM perfume_notes n
+JOIN perfume_duplicates d ON d.duplicate_id = n.perfume_id
+WHERE NOT EXISTS (SELECT 1 FROM perfume_notes kept WHERE kept.perfume_id = d.keep_id AND kept.note = n.note);
+
+DELETE FROM perfume_notes WHERE perfume_id IN (SELECT duplicate_id FROM perfume_duplicates);
+
+-- Solo si perfume_sales ya existe (si no, PerfumeRankings la rellena al arrancar):
+-- DELETE FROM perfume_sales WHERE perfume_id IN (SELECT duplicate_id FROM perfume_duplicates)
+--     OR perfume_id IN (SELECT keep_id FROM perfume_duplicates);
+-- INSERT INTO perfume_sales (perfume_id, sold)
+-- SELECT perfume_id, SUM(quantity) FROM order_items
+-- WHERE perfume_id IN (SELECT keep_id FROM perfume_duplicates) GROUP BY perfume_id;
+
+DELETE FROM perfumes WHERE id IN (SELECT duplicate_id FROM perfume_duplicates);
+
+DROP TABLE perfume_duplicates;
+
+ALTER TABLE perfumes ADD CONSTRAINT uk_perfumes_brand_name UNIQUE (brand, name);
@@ -0,0 +1,110 @@
+package com.scentalux.benchmark;
+
+import com.scentalux.ScentaLuxApiApplication;
+import com.scentalux.dto.PerfumeDTO;
+import com.scentalux.mapper.PerfumeMapper;
+import com.scentalux.model.Perfume;
+import com.scentalux.repo.PerfumeRepository;
+import com.scentalux.service.PerfumeImportService;
+import com.scentalux.service.PerfumeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carga del catálogo público: entidades gestionadas + mapeo frente a proyecciones.
+ *
+ * Levanta la aplicación sobre H2 en memoria con un catálogo sintético (1 de cada
+ * 10 perfumes sin publicar). Con {@code -prof gc} se ve también la memoria
+ * asignada por operación.
+ *
+ * Ejecutar con: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.scentalux.benchmark.CatalogLoadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogLoadBenchmark {
+
+    @Param("5000")
+    private int perfumes;
+
+    private ConfigurableApplicationContext context;
+    private PerfumeRepository repo;
+    private PerfumeService perfumeService;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = new SpringApplicationBuilder(ScentaLuxApiApplication.class)
+                .web(WebApplicationType.NONE)
+                // Como argumentos: tienen prioridad sobre application.properties
+                .run("--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+        repo = context.getBean(PerfumeRepository.class);
+        perfumeService = context.getBean(PerfumeService.class);
+
+        StringBuilder csv = new StringBuilder("name,brand,price,stock,category,description,published,notes\n");
+        for (int i = 1; i <= perfumes; i++) {
+            csv.append("Perfume ").append(i).append(",Marca ").append(i % 40).append(',')
+                    .append(50 + i % 400).append(',').append(i % 30).append(",Unisex,")
+                    .append("Descripción del perfume ").append(i).append(',')
+                    .append(i % 10 != 0).append(",Vainilla|Ámbar|Nota ").append(i % 25).append('\n');
+        }
+        context.getBean(PerfumeImportService.class).importPerfumes(PerfumeImportService.FORMAT_CSV,
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // Camino anterior: entidades con sus notas, mapeadas y filtradas en memoria
+    @Benchmark
+    public List<PerfumeDTO> entities() {
+        return repo.findAllWithNotesBy().stream()
+                .filter(Perfume::isPublished)
+                .map(PerfumeMapper::toDTO)
+                .toList();
+    }
+
+    @Benchmark
+    public List<PerfumeDTO> projections() {
+        return perfumeService.listPublishedCatalog();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CatalogLoadBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,92 @@
+package com.scentalux.benchmark;
+
+import com.scentalux.security.JwtTokenUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de autenticar una petición con JWT (sin la carga del usuario).
+ *
+ * {@code threeParses} reproduce el filtro anterior: clave derivada y parser
+ * nuevos en cada llamada, y tres verificaciones por petición.
+ *
+ * Ejecutar con: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.scentalux.benchmark.JwtValidationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtValidationBenchmark {
+
+    private static final String SECRET = "aEIu9S7cvZUnPJWezau3rKUCxj4BLtpCVzhVSyam93prJOxofs7688P0OD5tmTIsLL6u7G9HpXvT";
+
+    private JwtTokenUtil jwtTokenUtil;
+    private JwtParser parser;
+    private UserDetails user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtTokenUtil = new JwtTokenUtil(SECRET, Duration.ofMinutes(15), 10_000, new SimpleMeterRegistry());
+        parser = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes())).build();
+        user = new User("ana", "secret", List.of(new SimpleGrantedAuthority("USER")));
+        token = jwtTokenUtil.generateToken(user, 1, 0);
+    }
+
+    @Benchmark
+    public boolean threeParses() {
+        String username = legacyClaims().getSubject();
+        return username.equalsIgnoreCase(legacyClaims().getSubject())
+                && !legacyClaims().getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public boolean singleParse() {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        return claims.getSubject().equalsIgnoreCase(user.getUsername())
+                && !claims.getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public boolean cached() {
+        return jwtTokenUtil.validateToken(jwtTokenUtil.verify(token), user);
+    }
+
+    private Claims legacyClaims() {
+        return Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+                .parseSignedClaims(token).getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtValidationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,93 @@
+package com.scentalux.benchmark;
+
+import com.scentalux.model.Perfume;
+import com.scentalux.service.impl.PerfumeSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de búsqueda sobre un catálogo sintético.
+ *
+ * Ejecutar con: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.scentalux.benchmark.PerfumeSearchIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerfumeSearchIndexBenchmark {
+
+    private static final String[] BRANDS = {"Dior", "Chanel", "Carolina Herrera", "Lancôme", "Hugo Boss",
+            "Armani", "Versace", "Paco Rabanne", "Jean Paul Gaultier", "Yves Saint Laurent"};
+    private static final String[] WORDS = {"noche", "dulce", "intensa", "eau", "parfum", "sauvage", "bleu",
+            "misterio", "pasión", "océano", "jardín", "aurora", "élite", "fuego", "seda", "cristal"};
+    private static final String[] NOTES = {"vainilla", "bergamota", "pachulí", "ámbar", "jazmín", "rosa",
+            "sándalo", "almizcle", "cítricos", "lavanda", "cuero", "canela", "pimienta", "vetiver"};
+
+    @Param("100000")
+    private int perfumes;
+
+    private PerfumeSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        index = new PerfumeSearchIndex(null);
+        Random random = new Random(42);
+        List<Perfume> catalog = new ArrayList<>(perfumes);
+        for (int id = 1; id <= perfumes; id++) {
+            Perfume perfume = new Perfume();
+            perfume.setId(id);
+            perfume.setBrand(BRANDS[random.nextInt(BRANDS.length)]);
+            perfume.setName(pick(random, WORDS) + " " + pick(random, WORDS) + " " + id);
+            perfume.setDescription("Fragancia " + pick(random, WORDS) + " con notas de " + pick(random, NOTES));
+            perfume.setNotes(List.of(pick(random, NOTES), pick(random, NOTES), pick(random, NOTES)));
+            perfume.setPublished(true);
+            catalog.add(perfume);
+        }
+        index.indexAll(catalog);
+    }
+
+    @Benchmark
+    public PerfumeSearchIndex.Result selectiveTerms() {
+        return index.search("sauvage vainilla dior", 0, 24);
+    }
+
+    @Benchmark
+    public PerfumeSearchIndex.Result accentFoldedPrefix() {
+        return index.search("Jazmin pachu", 0, 24);
+    }
+
+    @Benchmark
+    public PerfumeSearchIndex.Result singleCommonTerm() {
+        return index.search("fragancia", 0, 24);
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PerfumeSearchIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
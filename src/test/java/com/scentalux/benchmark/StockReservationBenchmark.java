@@ -0,0 +1,121 @@
+package com.scentalux.benchmark;
+
+import com.scentalux.ScentaLuxApiApplication;
+import com.scentalux.dto.CreateOrderDTO;
+import com.scentalux.dto.OrderDTO;
+import com.scentalux.dto.OrderItemDTO;
+import com.scentalux.model.Perfume;
+import com.scentalux.model.User;
+import com.scentalux.repo.IUserRepo;
+import com.scentalux.repo.PerfumeRepository;
+import com.scentalux.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkout concurrente sobre pocos perfumes muy vendidos: UPDATE condicional en
+ * la fila de {@code perfumes} frente al ledger de reservas en memoria con
+ * descuento en lote ({@code scentalux.stock.ledger.enabled}).
+ *
+ * Levanta la aplicación sobre H2 en memoria; cada operación es un pedido completo
+ * de una línea. H2 bloquea filas de otra forma que InnoDB, así que la cifra sirve
+ * para comparar ambos caminos, no como estimación del throughput en MySQL.
+ *
+ * Ejecutar con: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.scentalux.benchmark.StockReservationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class StockReservationBenchmark {
+
+    private static final String USERNAME = "bench@test.com";
+
+    @Param({"false", "true"})
+    private boolean ledger;
+
+    @Param("4")
+    private int hotPerfumes;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private final List<Integer> perfumeIds = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ScentaLuxApiApplication.class)
+                .web(WebApplicationType.NONE)
+                // Como argumentos: tienen prioridad sobre application.properties
+                .run("--spring.datasource.url=jdbc:h2:mem:stock;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--scentalux.stock.ledger.enabled=" + ledger,
+                        "--logging.level.root=WARN");
+        orderService = context.getBean(OrderService.class);
+
+        User user = new User();
+        user.setUsername(USERNAME);
+        user.setPassword("x");
+        user.setEnabled(true);
+        context.getBean(IUserRepo.class).save(user);
+
+        PerfumeRepository repo = context.getBean(PerfumeRepository.class);
+        for (int i = 1; i <= hotPerfumes; i++) {
+            Perfume perfume = new Perfume();
+            perfume.setName("Perfume " + i);
+            perfume.setBrand("Marca");
+            perfume.setPrice(100.0);
+            perfume.setCategory("UNISEX");
+            perfume.setStock(Integer.MAX_VALUE);
+            perfumeIds.add(repo.save(perfume).getId());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public OrderDTO checkout() {
+        Integer perfumeId = perfumeIds.get(ThreadLocalRandom.current().nextInt(perfumeIds.size()));
+        List<OrderItemDTO> items = List.of(new OrderItemDTO(perfumeId, 1));
+        return orderService.createOrder(new CreateOrderDTO(items, "YAPE", "Cliente",
+                "Av. Siempre Viva 123", "Lima", "15001", null), USERNAME);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StockReservationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -1,12 +1,10 @@
 package com.scentalux.controller;
 
-import com.scentalux.model.Role;
-import com.scentalux.model.User;
-import com.scentalux.repo.IUserRepo;
 import com.scentalux.security.JwtRequest;
 import com.scentalux.security.JwtResponse;
 import com.scentalux.security.JwtTokenUtil;
-import com.scentalux.security.JwtUserDetailsService;
+import com.scentalux.security.RefreshTokenService;
+import com.scentalux.security.UserDetailsCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -19,6 +17,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,10 +30,10 @@ class LoginControllerTest {
     private JwtTokenUtil jwtTokenUtil;
 
     @Mock
-    private JwtUserDetailsService jwtUserDetailsService;
+    private UserDetailsCache userDetailsCache;
 
     @Mock
-    private IUserRepo userRepo;
+    private RefreshTokenService refreshTokenService;
 
     @InjectMocks
     private LoginController loginController;
@@ -50,26 +49,14 @@ void login_ReturnsTokenAndUserData() throws Exception {
     // Arrange
     JwtRequest request = new JwtRequest("userTest", "1234");
 
-    UserDetails userDetails = mock(UserDetails.class);
-    when(jwtUserDetailsService.loadUserByUsername("userTest")).thenReturn(userDetails);
+    // Usuario simulado (ya cargado en la caché por la autenticación)
+    UserDetailsCache.CachedUser user = new UserDetailsCache.CachedUser(
+            7, "userTest", "encodedPass", true, 3, List.of("ADMIN"));
+    when(userDetailsCache.get("userTest")).thenReturn(user);
 
-    when(jwtTokenUtil.generateToken(userDetails)).thenReturn("fake-jwt-token");
-
-    // Crear usuario simulado
-    User user = new User();
-    user.setUsername("userTest");
-    user.setPassword("encodedPass");
-    user.setEnabled(true);
-
-    Role role = new Role();
-    role.setIdRole(1);
-    role.setName("ADMIN");
-    role.setDescription("Administrador");
-
-    // 👇 Aquí el cambio correcto
-    user.setRoles(List.of(role));
-
-    when(userRepo.findOneByUsername("userTest")).thenReturn(user);
+    when(jwtTokenUtil.generateToken(any(UserDetails.class), eq(7), eq(3))).thenReturn("fake-jwt-token");
+    when(jwtTokenUtil.getAccessTokenTtlSeconds()).thenReturn(900L);
+    when(refreshTokenService.issue(user)).thenReturn("fake-refresh-token");
 
 
     // Act
@@ -83,11 +70,13 @@ void login_ReturnsTokenAndUserData() throws Exception {
     assertEquals("fake-jwt-token", jwtResponse.accessToken());
     assertEquals("userTest", jwtResponse.username());
     assertEquals(List.of("ADMIN"), jwtResponse.roles());
+    assertEquals("fake-refresh-token", jwtResponse.refreshToken());
+    assertEquals(900L, jwtResponse.expiresIn());
 
     verify(authenticationManager).authenticate(any());
-    verify(jwtUserDetailsService).loadUserByUsername("userTest");
-    verify(jwtTokenUtil).generateToken(userDetails);
-    verify(userRepo).findOneByUsername("userTest");
+    verify(jwtTokenUtil).generateToken(argThat(details -> details.getUsername().equals("userTest")
+            && details.getAuthorities().size() == 1), eq(7), eq(3));
+    verify(userDetailsCache).get("userTest");
 }
 
 }
@@ -0,0 +1,54 @@
+package com.scentalux.controller;
+
+import com.scentalux.dto.PerfumeDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Alta y edición con una marca + nombre ya usados: 409 con un mensaje claro
+@SpringBootTest
+@ActiveProfiles("h2")
+class PerfumeControllerDuplicateTest {
+
+    @Autowired
+    private PerfumeController controller;
+
+    @Test
+    void registrar_DuplicateBrandAndNameReturns409() {
+        String name = "Duplicado " + System.nanoTime();
+        assertEquals(HttpStatus.CREATED, controller.registrar(dto(name)).getStatusCode());
+
+        ResponseEntity<Object> duplicate = controller.registrar(dto(name));
+
+        assertEquals(HttpStatus.CONFLICT, duplicate.getStatusCode());
+        assertEquals(Map.of("error", "Ya existe un perfume con esa marca y nombre"), duplicate.getBody());
+    }
+
+    @Test
+    void modificar_RenamingOntoAnotherPerfumeReturns409() {
+        String taken = "Ocupado " + System.nanoTime();
+        controller.registrar(dto(taken));
+        PerfumeDTO other = (PerfumeDTO) controller.registrar(dto("Libre " + System.nanoTime())).getBody();
+
+        ResponseEntity<Object> renamed = controller.modificar(Integer.valueOf(other.getId()), dto(taken));
+
+        assertEquals(HttpStatus.CONFLICT, renamed.getStatusCode());
+    }
+
+    private static PerfumeDTO dto(String name) {
+        PerfumeDTO dto = new PerfumeDTO();
+        dto.setName(name);
+        dto.setBrand("Marca");
+        dto.setPrice(100.0);
+        dto.setStock(5);
+        dto.setCategory("Unisex");
+        return dto;
+    }
+}
@@ -0,0 +1,125 @@
+package com.scentalux.controller;
+
+import com.scentalux.dto.PerfumeDTO;
+import com.scentalux.model.Perfume;
+import com.scentalux.repo.PerfumeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ETags de /perfumes/admin y /perfumes/{id}: se derivan del contenido, así que
+ * cualquier instancia devuelve el mismo valor para los mismos datos.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class PerfumeControllerEtagTest {
+
+    @Autowired
+    private PerfumeController controller;
+
+    @Autowired
+    private PerfumeRepository perfumeRepo;
+
+    private Integer perfumeId;
+
+    @BeforeEach
+    void setUp() {
+        Perfume perfume = new Perfume();
+        perfume.setName("Perfume etag " + System.nanoTime());
+        perfume.setBrand("Marca");
+        perfume.setPrice(100.0);
+        perfume.setCategory("UNISEX");
+        perfume.setStock(5);
+        perfumeId = perfumeRepo.save(perfume).getId();
+    }
+
+    @Test
+    void obtenerPorId_Returns304ForCurrentEtagAndNewEtagAfterWrite() {
+        Call first = call(request -> controller.obtenerPorId(perfumeId, request), null);
+        assertEquals(HttpStatus.OK.value(), first.status());
+        assertNotNull(first.etag());
+
+        Call revalidated = call(request -> controller.obtenerPorId(perfumeId, request), first.etag());
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), revalidated.status());
+        assertNull(revalidated.body());
+
+        rename(perfumeId, "Perfume renombrado " + System.nanoTime());
+
+        Call afterWrite = call(request -> controller.obtenerPorId(perfumeId, request), first.etag());
+        assertEquals(HttpStatus.OK.value(), afterWrite.status());
+        assertNotEquals(first.etag(), afterWrite.etag());
+    }
+
+    @Test
+    void listarTodos_Returns304ForCurrentEtagAndNewEtagAfterWrite() {
+        Call first = call(controller::listarTodos, null);
+        assertEquals(HttpStatus.OK.value(), first.status());
+
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), call(controller::listarTodos, first.etag()).status());
+
+        rename(perfumeId, "Perfume renombrado " + System.nanoTime());
+
+        Call afterWrite = call(controller::listarTodos, first.etag());
+        assertEquals(HttpStatus.OK.value(), afterWrite.status());
+        assertNotEquals(first.etag(), afterWrite.etag());
+    }
+
+    @Test
+    void obtenerPorId_EtagIgnoresChangesToOtherPerfumes() {
+        Call first = call(request -> controller.obtenerPorId(perfumeId, request), null);
+
+        Perfume other = new Perfume();
+        other.setName("Otro perfume " + System.nanoTime());
+        other.setBrand("Marca");
+        other.setPrice(100.0);
+        other.setCategory("UNISEX");
+        other.setStock(5);
+        Integer otherId = perfumeRepo.save(other).getId();
+        rename(otherId, "Otro renombrado " + System.nanoTime());
+
+        assertEquals(HttpStatus.NOT_MODIFIED.value(),
+                call(request -> controller.obtenerPorId(perfumeId, request), first.etag()).status());
+    }
+
+    private void rename(Integer id, String name) {
+        PerfumeDTO dto = new PerfumeDTO();
+        dto.setName(name);
+        dto.setBrand("Marca");
+        dto.setPrice(100.0);
+        dto.setStock(5);
+        dto.setCategory("Unisex");
+        ResponseEntity<?> response = controller.modificar(id, dto);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    private record Call(int status, String etag, Object body) {
+    }
+
+    private static Call call(Function<ServletWebRequest, ResponseEntity<?>> endpoint, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/perfumes");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ResponseEntity<?> entity = endpoint.apply(new ServletWebRequest(request, response));
+        // checkNotModified escribe el ETag directamente en la respuesta
+        String etag = response.getHeader(HttpHeaders.ETAG);
+        if (entity == null) {
+            return new Call(response.getStatus(), etag, null);
+        }
+        return new Call(entity.getStatusCode().value(), etag, entity.getBody());
+    }
+}
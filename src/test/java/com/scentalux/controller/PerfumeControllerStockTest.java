@@ -0,0 +1,52 @@
+package com.scentalux.controller;
+
+import com.scentalux.dto.PerfumeDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Descuento de stock: las cantidades inválidas son un 400, no un 404
+@SpringBootTest
+@ActiveProfiles("h2")
+class PerfumeControllerStockTest {
+
+    @Autowired
+    private PerfumeController controller;
+
+    @Test
+    void updateStock_NegativeQuantityReturns400() {
+        Integer id = Integer.valueOf(registrar().getId());
+
+        ResponseEntity<Object> response = controller.updateStock(id, Map.of("quantitySold", -1));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(Map.of("error", "La cantidad vendida no puede ser negativa"), response.getBody());
+    }
+
+    @Test
+    void updateStock_InsufficientStockReturns400() {
+        Integer id = Integer.valueOf(registrar().getId());
+
+        ResponseEntity<Object> response = controller.updateStock(id, Map.of("quantitySold", 6));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(5, ((PerfumeDTO) controller.updateStock(id, Map.of("quantitySold", 0)).getBody()).getStock());
+    }
+
+    private PerfumeDTO registrar() {
+        PerfumeDTO dto = new PerfumeDTO();
+        dto.setName("Stock " + System.nanoTime());
+        dto.setBrand("Marca");
+        dto.setPrice(100.0);
+        dto.setStock(5);
+        dto.setCategory("Unisex");
+        return (PerfumeDTO) controller.registrar(dto).getBody();
+    }
+}
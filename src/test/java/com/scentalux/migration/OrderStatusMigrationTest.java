@@ -0,0 +1,80 @@
+package com.scentalux.migration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptException;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Script V1__normalize_order_status.sql sobre H2 (modo MySQL) con estados heredados
+class OrderStatusMigrationTest {
+
+    private static final ClassPathResource SCRIPT = new ClassPathResource("db/migration/V1__normalize_order_status.sql");
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL", "sa", "");
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE TABLE orders (id INT PRIMARY KEY, order_number VARCHAR(50), status VARCHAR(50))");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void normalizesCaseSpacesAndFeminineForms() throws SQLException {
+        insert(1, "pendiente");
+        insert(2, " Confirmado ");
+        insert(3, "enviada");
+        insert(4, "CANCELADA");
+        insert(5, "ENTREGADO");
+
+        ScriptUtils.executeSqlScript(connection, SCRIPT);
+
+        assertEquals(List.of("PENDIENTE", "CONFIRMADO", "ENVIADO", "CANCELADO", "ENTREGADO"), statuses());
+        // El CHECK queda y rechaza escrituras futuras fuera del enum
+        assertThrows(SQLException.class, () -> insert(6, "PAGADO"));
+    }
+
+    @Test
+    void rejectsUnknownStatuses() throws SQLException {
+        insert(1, "confirmado");
+        insert(2, "PAGADO");
+
+        assertThrows(ScriptException.class, () -> ScriptUtils.executeSqlScript(connection, SCRIPT));
+    }
+
+    private void insert(int id, String status) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("INSERT INTO orders VALUES (" + id + ", 'ORD" + id + "', '" + status + "')");
+        }
+    }
+
+    private List<String> statuses() throws SQLException {
+        List<String> statuses = new ArrayList<>();
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT status FROM orders ORDER BY id")) {
+            while (rs.next()) {
+                statuses.add(rs.getString(1));
+            }
+        }
+        return statuses;
+    }
+}
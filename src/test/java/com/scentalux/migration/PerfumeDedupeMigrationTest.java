@@ -0,0 +1,86 @@
+package com.scentalux.migration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Script V2__dedupe_perfumes.sql sobre H2 (modo MySQL) con perfumes repetidos
+class PerfumeDedupeMigrationTest {
+
+    private static final ClassPathResource SCRIPT = new ClassPathResource("db/migration/V2__dedupe_perfumes.sql");
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL", "sa", "");
+        execute("CREATE TABLE perfumes (id INT PRIMARY KEY, name VARCHAR(255), brand VARCHAR(255), "
+                + "stock INT, published BOOLEAN)");
+        execute("CREATE TABLE perfume_notes (perfume_id INT REFERENCES perfumes(id), note VARCHAR(255))");
+        execute("CREATE TABLE order_items (id INT PRIMARY KEY, perfume_id INT NOT NULL REFERENCES perfumes(id), "
+                + "quantity INT)");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void mergesDuplicatesIntoTheOldestAndAddsTheConstraint() throws SQLException {
+        execute("INSERT INTO perfumes VALUES (1, 'Sauvage', 'Dior', 5, FALSE), (2, 'Libre', 'YSL', 4, TRUE), "
+                + "(3, 'Sauvage', 'Dior', 2, TRUE), (4, 'Sauvage', 'Dior', 1, FALSE)");
+        execute("INSERT INTO perfume_notes VALUES (1, 'Bergamota'), (3, 'Bergamota'), (3, 'Cuero'), (2, 'Lavanda')");
+        execute("INSERT INTO order_items VALUES (10, 3, 1), (11, 4, 2), (12, 2, 1)");
+
+        ScriptUtils.executeSqlScript(connection, SCRIPT);
+
+        assertEquals(List.of("1:8:TRUE", "2:4:TRUE"),
+                query("SELECT id || ':' || stock || ':' || published FROM perfumes ORDER BY id"));
+        assertEquals(List.of("1:10", "1:11", "2:12"),
+                query("SELECT perfume_id || ':' || id FROM order_items ORDER BY id"));
+        assertEquals(List.of("1:Bergamota", "1:Cuero", "2:Lavanda"),
+                query("SELECT perfume_id || ':' || note FROM perfume_notes ORDER BY perfume_id, note"));
+        assertThrows(SQLException.class, () -> execute("INSERT INTO perfumes VALUES (5, 'Libre', 'YSL', 1, TRUE)"));
+    }
+
+    @Test
+    void leavesCleanTablesUntouched() throws SQLException {
+        execute("INSERT INTO perfumes VALUES (1, 'Sauvage', 'Dior', 5, TRUE), (2, 'Libre', 'YSL', 4, FALSE)");
+
+        ScriptUtils.executeSqlScript(connection, SCRIPT);
+
+        assertEquals(List.of("1:5:TRUE", "2:4:FALSE"),
+                query("SELECT id || ':' || stock || ':' || published FROM perfumes ORDER BY id"));
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute(sql);
+        }
+    }
+
+    private List<String> query(String sql) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) {
+                rows.add(rs.getString(1));
+            }
+        }
+        return rows;
+    }
+}
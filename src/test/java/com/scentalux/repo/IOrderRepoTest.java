@@ -0,0 +1,157 @@
+package com.scentalux.repo;
+
+import com.scentalux.dto.OrderSummaryDTO;
+import com.scentalux.model.Order;
+import com.scentalux.model.OrderItem;
+import com.scentalux.model.OrderStatus;
+import com.scentalux.model.Perfume;
+import com.scentalux.model.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Consultas de pedidos sobre H2 (modo MySQL)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+class IOrderRepoTest {
+
+    private static final LocalDateTime SAME_DATE = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    @Autowired
+    private IOrderRepo orderRepo;
+
+    @Autowired
+    private EntityManager em;
+
+    private User user;
+
+    private int sequence;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("pedidos@test.com");
+        user.setPassword("x");
+        user.setEnabled(true);
+        em.persist(user);
+    }
+
+    @Test
+    void findPage_WalksEqualDatesOnceInStableOrder() {
+        List<Order> saved = new ArrayList<>();
+        // 7 pedidos con la misma fecha entre otros más antiguos y más nuevos
+        saved.add(order(SAME_DATE.plusDays(1), OrderStatus.PENDIENTE));
+        for (int i = 0; i < 7; i++) {
+            saved.add(order(SAME_DATE, OrderStatus.PENDIENTE));
+        }
+        saved.add(order(SAME_DATE.minusDays(1), OrderStatus.PENDIENTE));
+        em.flush();
+
+        List<Integer> expected = saved.stream()
+                .sorted(Comparator.comparing(Order::getOrderDate).thenComparing(Order::getId).reversed())
+                .map(Order::getId)
+                .toList();
+
+        List<Integer> walked = new ArrayList<>();
+        LocalDateTime cursorDate = null;
+        Integer cursorId = null;
+        List<Order> page;
+        do {
+            page = orderRepo.findPage(null, null, null, cursorDate, cursorId, PageRequest.of(0, 3));
+            page.forEach(order -> walked.add(order.getId()));
+            if (!page.isEmpty()) {
+                Order last = page.get(page.size() - 1);
+                cursorDate = last.getOrderDate();
+                cursorId = last.getId();
+            }
+        } while (page.size() == 3);
+
+        assertEquals(expected, walked);
+    }
+
+    @Test
+    void findPage_AppliesStatusAndDateRange() {
+        Order inRange = order(SAME_DATE, OrderStatus.CONFIRMADO);
+        order(SAME_DATE, OrderStatus.PENDIENTE);
+        order(SAME_DATE.plusDays(2), OrderStatus.CONFIRMADO);
+        em.flush();
+
+        List<Order> page = orderRepo.findPage(OrderStatus.CONFIRMADO, SAME_DATE, SAME_DATE.plusDays(1),
+                null, null, PageRequest.of(0, 10));
+
+        assertEquals(List.of(inRange.getId()), page.stream().map(Order::getId).toList());
+    }
+
+    @Test
+    void findSummaryPage_CountsItemsPerOrderAndPagesByCursor() {
+        Perfume perfume = new Perfume();
+        perfume.setName("Perfume resumen");
+        perfume.setBrand("Marca");
+        em.persist(perfume);
+
+        Order newest = order(SAME_DATE.plusDays(1), OrderStatus.PENDIENTE);
+        Order withoutItems = order(SAME_DATE, OrderStatus.PENDIENTE);
+        Order oldest = order(SAME_DATE.minusDays(1), OrderStatus.PENDIENTE);
+        addItems(newest, perfume, 3);
+        addItems(oldest, perfume, 1);
+
+        User other = new User();
+        other.setUsername("otro@test.com");
+        other.setPassword("x");
+        other.setEnabled(true);
+        em.persist(other);
+        Order foreign = order(SAME_DATE.plusDays(2), OrderStatus.PENDIENTE);
+        foreign.setUser(other);
+        em.flush();
+        em.clear();
+
+        List<OrderSummaryDTO> first = orderRepo.findSummaryPage("pedidos@test.com", null, null, PageRequest.of(0, 2));
+        assertEquals(List.of(newest.getId(), withoutItems.getId()), first.stream().map(OrderSummaryDTO::getId).toList());
+        assertEquals(List.of(3L, 0L), first.stream().map(OrderSummaryDTO::getItemCount).toList());
+
+        OrderSummaryDTO last = first.get(1);
+        List<OrderSummaryDTO> second = orderRepo.findSummaryPage("pedidos@test.com", last.getOrderDate(), last.getId(),
+                PageRequest.of(0, 2));
+        assertEquals(List.of(oldest.getId()), second.stream().map(OrderSummaryDTO::getId).toList());
+        assertEquals(1L, second.get(0).getItemCount());
+    }
+
+    private void addItems(Order order, Perfume perfume, int count) {
+        for (int i = 0; i < count; i++) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setPerfume(perfume);
+            item.setQuantity(1);
+            item.setUnitPrice(100.0);
+            item.setTotalPrice(100.0);
+            em.persist(item);
+        }
+    }
+
+    private Order order(LocalDateTime date, OrderStatus status) {
+        Order order = new Order();
+        order.setOrderNumber("ORD-TEST-" + (++sequence));
+        order.setUser(user);
+        order.setOrderDate(date);
+        order.setSubtotal(100.0);
+        order.setTaxes(8.0);
+        order.setTotal(108.0);
+        order.setStatus(status);
+        order.setPaymentMethod("YAPE");
+        em.persist(order);
+        return order;
+    }
+}
@@ -0,0 +1,83 @@
+package com.scentalux.repo;
+
+import com.scentalux.dto.CatalogFilterDTO;
+import com.scentalux.model.Perfume;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Filtros del catálogo sobre H2 (modo MySQL)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+class PerfumeSpecificationsTest {
+
+    @Autowired
+    private PerfumeRepository repo;
+
+    @Autowired
+    private EntityManager em;
+
+    private int sequence;
+
+    @Test
+    void catalog_AlwaysExcludesUnpublished() {
+        Perfume visible = perfume("Marca", "UNISEX", 100.0, 5, true);
+        perfume("Marca", "UNISEX", 100.0, 5, false);
+        em.flush();
+
+        assertEquals(List.of(visible.getId()), ids(new CatalogFilterDTO()));
+        // Ningún filtro vuelve a incluir los no publicados
+        assertEquals(List.of(visible.getId()), ids(new CatalogFilterDTO("Marca", "UNISEX", 0.0, 1000.0, true)));
+    }
+
+    @Test
+    void catalog_CombinesFilters() {
+        Perfume match = perfume("Dior", "PARA_EL", 150.0, 3, true);
+        perfume("Dior", "PARA_ELLA", 150.0, 3, true);
+        perfume("Chanel", "PARA_EL", 150.0, 3, true);
+        perfume("Dior", "PARA_EL", 250.0, 3, true);
+        perfume("Dior", "PARA_EL", 150.0, 0, true);
+        em.flush();
+
+        CatalogFilterDTO filter = new CatalogFilterDTO(" Dior ", "PARA_EL", 100.0, 200.0, true);
+
+        assertEquals(List.of(match.getId()), ids(filter));
+    }
+
+    @Test
+    void catalog_PriceBoundsAreInclusive() {
+        Perfume low = perfume("Marca", "UNISEX", 100.0, 1, true);
+        Perfume high = perfume("Marca", "UNISEX", 200.0, 1, true);
+        perfume("Marca", "UNISEX", 200.5, 1, true);
+        em.flush();
+
+        assertEquals(List.of(low.getId(), high.getId()), ids(new CatalogFilterDTO(null, null, 100.0, 200.0, null)));
+    }
+
+    private List<Integer> ids(CatalogFilterDTO filter) {
+        return repo.findAll(PerfumeSpecifications.catalog(filter), Sort.by("id")).stream()
+                .map(Perfume::getId)
+                .toList();
+    }
+
+    private Perfume perfume(String brand, String category, double price, int stock, boolean published) {
+        Perfume perfume = new Perfume();
+        perfume.setName("Perfume " + (++sequence));
+        perfume.setBrand(brand);
+        perfume.setCategory(category);
+        perfume.setPrice(price);
+        perfume.setStock(stock);
+        perfume.setPublished(published);
+        em.persist(perfume);
+        return perfume;
+    }
+}
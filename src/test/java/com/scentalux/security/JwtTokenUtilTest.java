@@ -0,0 +1,54 @@
+package com.scentalux.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenUtilTest {
+
+    private static final String SECRET = "aEIu9S7cvZUnPJWezau3rKUCxj4BLtpCVzhVSyam93prJOxofs7688P0OD5tmTIsLL6u7G9HpXvT";
+
+    private JwtTokenUtil jwtTokenUtil;
+    private UserDetails user;
+
+    @BeforeEach
+    void setUp() {
+        jwtTokenUtil = new JwtTokenUtil(SECRET, Duration.ofMinutes(15), 100, new SimpleMeterRegistry());
+        user = new User("ana", "secret", List.of(new SimpleGrantedAuthority("USER")));
+    }
+
+    @Test
+    void verify_ReusesClaimsOfAlreadyVerifiedToken() {
+        String token = jwtTokenUtil.generateToken(user, 1, 0);
+
+        Claims first = jwtTokenUtil.verify(token);
+        Claims second = jwtTokenUtil.verify(token);
+
+        assertEquals("ana", first.getSubject());
+        assertEquals("USER", first.get("role"));
+        assertSame(first, second);
+        assertTrue(jwtTokenUtil.validateToken(second, user));
+        assertFalse(jwtTokenUtil.validateToken(second, new User("otro", "x", List.of())));
+    }
+
+    @Test
+    void verify_RejectsTokenSignedWithAnotherKey() {
+        JwtTokenUtil other = new JwtTokenUtil(SECRET.replace('a', 'b'), Duration.ofMinutes(15), 100, new SimpleMeterRegistry());
+        String token = jwtTokenUtil.generateToken(user, 1, 0);
+        jwtTokenUtil.verify(token);
+
+        assertThrows(JwtException.class, () -> other.verify(token));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertThrows(JwtException.class, () -> jwtTokenUtil.verify(tampered));
+    }
+}
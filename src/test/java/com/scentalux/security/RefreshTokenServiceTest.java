@@ -0,0 +1,76 @@
+package com.scentalux.security;
+
+import com.scentalux.exception.InvalidRefreshTokenException;
+import com.scentalux.model.RefreshToken;
+import com.scentalux.repo.IRefreshTokenRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class RefreshTokenServiceTest {
+
+    private IRefreshTokenRepo repo;
+    private UserDetailsCache userDetailsCache;
+    private RefreshTokenService service;
+    private final UserDetailsCache.CachedUser user =
+            new UserDetailsCache.CachedUser(7, "ana@x.com", "hash", true, 0, List.of("CLIENTE"));
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(IRefreshTokenRepo.class);
+        userDetailsCache = mock(UserDetailsCache.class);
+        when(userDetailsCache.get("ana@x.com")).thenReturn(user);
+        service = new RefreshTokenService(repo, userDetailsCache, mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), Duration.ofDays(14));
+    }
+
+    // Devuelve lo que se guardó al emitir el token (solo el hash, nunca el valor)
+    private RefreshToken issued(String token) {
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(repo, atLeastOnce()).save(saved.capture());
+        RefreshToken stored = saved.getValue();
+        stored.setId(1L);
+        assertNotEquals(token, stored.getTokenHash());
+        when(repo.findByTokenHash(JwtTokenUtil.sha256Hex(token))).thenReturn(stored);
+        return stored;
+    }
+
+    @Test
+    void rotate_ConsumesTokenAndKeepsFamily() {
+        String token = service.issue(user);
+        RefreshToken stored = issued(token);
+        when(repo.markUsed(anyLong(), any())).thenReturn(1);
+
+        RefreshTokenService.Rotation rotation = service.rotate(token);
+
+        assertSame(user, rotation.user());
+        assertNotEquals(token, rotation.refreshToken());
+        RefreshToken next = issued(rotation.refreshToken());
+        assertEquals(stored.getFamilyId(), next.getFamilyId());
+        assertEquals(stored.getExpiresAt(), next.getExpiresAt());
+    }
+
+    @Test
+    void rotate_ReusedTokenRevokesWholeFamily() {
+        String token = service.issue(user);
+        RefreshToken stored = issued(token);
+        stored.setUsedAt(LocalDateTime.now());
+
+        InvalidRefreshTokenException e = assertThrows(InvalidRefreshTokenException.class, () -> service.rotate(token));
+
+        assertEquals("REFRESH_TOKEN_REUSED", e.getMessage());
+        verify(repo).revokeFamily(stored.getFamilyId());
+        assertThrows(InvalidRefreshTokenException.class, () -> service.rotate("desconocido"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.scentalux.security;
+
+import com.scentalux.repo.IUserRepo;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TokenVersionServiceTest {
+
+    private static final String SECRET = "aEIu9S7cvZUnPJWezau3rKUCxj4BLtpCVzhVSyam93prJOxofs7688P0OD5tmTIsLL6u7G9HpXvT";
+
+    private IUserRepo userRepo;
+    private TokenVersionService tokenVersionService;
+    private JwtTokenUtil jwtTokenUtil;
+
+    @BeforeEach
+    void setUp() {
+        userRepo = mock(IUserRepo.class);
+        tokenVersionService = new TokenVersionService(userRepo, mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+        jwtTokenUtil = new JwtTokenUtil(SECRET, Duration.ofMinutes(15), 100, new SimpleMeterRegistry());
+    }
+
+    private Claims claims(int userId, int version) {
+        User user = new User("ana", "x", List.of(new SimpleGrantedAuthority("CLIENTE")));
+        return jwtTokenUtil.verify(jwtTokenUtil.generateToken(user, userId, version));
+    }
+
+    @Test
+    void isCurrent_LoadsVersionOnceAndRejectsAfterRevoke() {
+        when(userRepo.findActiveTokenVersion(7)).thenReturn(0, 1);
+        Claims issued = claims(7, 0);
+
+        assertTrue(tokenVersionService.isCurrent(issued));
+        assertTrue(tokenVersionService.isCurrent(issued));
+        verify(userRepo, times(1)).findActiveTokenVersion(7);
+
+        tokenVersionService.revoke(7);
+
+        verify(userRepo).incrementTokenVersion(7);
+        assertFalse(tokenVersionService.isCurrent(issued));
+        assertTrue(tokenVersionService.isCurrent(claims(7, 1)));
+        assertEquals(List.of(new SimpleGrantedAuthority("CLIENTE")), jwtTokenUtil.getAuthorities(issued));
+    }
+
+    @Test
+    void isCurrent_RejectsDisabledOrMissingUsers() {
+        when(userRepo.findActiveTokenVersion(7)).thenReturn(-1);
+        when(userRepo.findActiveTokenVersion(8)).thenReturn(null);
+
+        assertFalse(tokenVersionService.isCurrent(claims(7, 0)));
+        assertFalse(tokenVersionService.isCurrent(claims(8, 0)));
+    }
+}
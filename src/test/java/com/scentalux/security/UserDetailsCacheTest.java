@@ -0,0 +1,84 @@
+package com.scentalux.security;
+
+import com.scentalux.model.Role;
+import com.scentalux.model.User;
+import com.scentalux.repo.IUserRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserDetailsCacheTest {
+
+    private IUserRepo repo;
+    private UserDetailsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(IUserRepo.class);
+        cache = new UserDetailsCache(repo, new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+    }
+
+    private static User user(String... roles) {
+        List<Role> list = new ArrayList<>();
+        for (String role : roles) {
+            list.add(new Role(list.size() + 1, role, role));
+        }
+        return new User(7, "ana@x.com", "hash", true, 2, list);
+    }
+
+    @Test
+    void get_LoadsOnceUntilUserIsEvicted() {
+        when(repo.findWithRolesByUsername("ana@x.com")).thenReturn(user("CLIENTE"), user("CLIENTE", "ADMIN"));
+
+        UserDetails details = cache.get("ana@x.com").toUserDetails();
+        cache.get("ana@x.com");
+
+        verify(repo, times(1)).findWithRolesByUsername("ana@x.com");
+        assertEquals("hash", details.getPassword());
+        assertTrue(details.isEnabled());
+        assertEquals(List.of("CLIENTE"), cache.get("ana@x.com").roles());
+
+        cache.evict(8);
+        assertEquals(List.of("CLIENTE"), cache.get("ana@x.com").roles());
+        cache.evict(7);
+        assertEquals(List.of("CLIENTE", "ADMIN"), cache.get("ana@x.com").roles());
+        verify(repo, times(2)).findWithRolesByUsername("ana@x.com");
+    }
+
+    @Test
+    void get_DiscardsALoadThatRacedWithAnEviction() {
+        // La lectura ve al usuario antes del commit que lo deshabilita; la invalidación llega durante la carga
+        User stale = user("CLIENTE");
+        User disabled = new User(7, "ana@x.com", "hash", false, 3, List.of());
+        when(repo.findWithRolesByUsername("ana@x.com"))
+                .thenAnswer(invocation -> {
+                    cache.evict(7);
+                    return stale;
+                })
+                .thenReturn(disabled);
+
+        assertTrue(cache.get("ana@x.com").enabled());
+
+        UserDetailsCache.CachedUser fresh = cache.get("ana@x.com");
+        assertFalse(fresh.enabled());
+        assertEquals(3, fresh.tokenVersion());
+        verify(repo, times(2)).findWithRolesByUsername("ana@x.com");
+    }
+
+    @Test
+    void get_UnknownUserIsNotCached() {
+        assertThrows(UsernameNotFoundException.class, () -> cache.get("nadie"));
+        assertThrows(UsernameNotFoundException.class, () -> cache.get("nadie"));
+
+        verify(repo, times(2)).findWithRolesByUsername("nadie");
+    }
+}
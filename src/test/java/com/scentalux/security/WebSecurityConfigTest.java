@@ -0,0 +1,113 @@
+package com.scentalux.security;
+
+import com.scentalux.model.User;
+import com.scentalux.repo.IUserRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Reglas de acceso: listados completos y exportaciones solo para ADMIN, el catálogo público abierto
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class WebSecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Autowired
+    private IUserRepo userRepo;
+
+    @Test
+    void perfumesAdmin_RequiresAdminAuthority() throws Exception {
+        mockMvc.perform(get("/perfumes/admin"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/perfumes/admin").header(HttpHeaders.AUTHORIZATION, bearer("cliente@sec.test", "USER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/perfumes/admin").header(HttpHeaders.AUTHORIZATION, bearer("admin@sec.test", "ADMIN")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void perfumesImport_IsNotPublic() throws Exception {
+        mockMvc.perform(get("/perfumes/import"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void ordersExport_RequiresAdminAuthority() throws Exception {
+        mockMvc.perform(get("/orders/export"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/orders/export").header(HttpHeaders.AUTHORIZATION, bearer("cliente@sec.test", "USER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/orders/export").header(HttpHeaders.AUTHORIZATION, bearer("admin@sec.test", "ADMIN")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void ordersStats_RequiresAdminAuthority() throws Exception {
+        mockMvc.perform(get("/orders/stats").header(HttpHeaders.AUTHORIZATION, bearer("cliente@sec.test", "USER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/orders/stats").header(HttpHeaders.AUTHORIZATION, bearer("admin@sec.test", "ADMIN")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void ordersBulkStatus_RequiresAdminAuthority() throws Exception {
+        // Con token CSRF válido: el 403 del cliente solo puede venir de la regla de autorización
+        MockHttpSession session = new MockHttpSession();
+        CsrfToken csrf = (CsrfToken) mockMvc.perform(get("/perfumes").session(session))
+                .andReturn().getRequest().getAttribute(CsrfToken.class.getName());
+        String body = "{\"status\":\"ENVIADO\",\"orderIds\":[-1]}";
+
+        mockMvc.perform(put("/orders/status").session(session)
+                        .header(csrf.getHeaderName(), csrf.getToken())
+                        .header(HttpHeaders.AUTHORIZATION, bearer("cliente@sec.test", "USER"))
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(put("/orders/status").session(session)
+                        .header(csrf.getHeaderName(), csrf.getToken())
+                        .header(HttpHeaders.AUTHORIZATION, bearer("admin@sec.test", "ADMIN"))
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void publicCatalog_StaysOpen() throws Exception {
+        mockMvc.perform(get("/perfumes"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/perfumes/catalog"))
+                .andExpect(status().isOk());
+    }
+
+    private String bearer(String username, String role) {
+        User user = userRepo.findOneByUsername(username);
+        if (user == null) {
+            user = new User();
+            user.setUsername(username);
+            user.setPassword("x");
+            user.setEnabled(true);
+            user = userRepo.save(user);
+        }
+        UserDetails details = org.springframework.security.core.userdetails.User.withUsername(username)
+                .password("x")
+                .authorities(role)
+                .build();
+        return "Bearer " + jwtTokenUtil.generateToken(details, user.getIdUser(), user.getTokenVersion());
+    }
+}
@@ -0,0 +1,91 @@
+package com.scentalux.service.impl;
+
+import com.scentalux.dto.CatalogFilterDTO;
+import com.scentalux.dto.FacetsDTO;
+import com.scentalux.dto.PerfumeDTO;
+import com.scentalux.event.PerfumeChangedEvent;
+import com.scentalux.service.PerfumeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CatalogColumnsTest {
+
+    private final PerfumeService perfumeService = mock(PerfumeService.class);
+    private CatalogColumns columns;
+
+    @BeforeEach
+    void setUp() {
+        when(perfumeService.listPublishedCatalog()).thenReturn(List.of(
+                perfume("1", "Dior", "Para Él", 150.0, 5, true, "Vainilla", "Oud"),
+                perfume("2", "Dior", "Para Ella", 80.0, 0, true, "Rosa"),
+                perfume("3", "Chanel", "Para Ella", 320.0, 2, true, "Vainilla"),
+                perfume("4", "Chanel", "Unisex", 90.0, 9, false, "Vainilla")));
+        columns = new CatalogColumns(perfumeService);
+        columns.rebuild();
+    }
+
+    @Test
+    void facets_CountsPublishedCatalog() {
+        FacetsDTO facets = columns.facets(new CatalogFilterDTO());
+
+        assertEquals(3, facets.getTotal());
+        assertEquals(Map.of("Dior", 2L, "Chanel", 1L), facets.getBrands());
+        assertEquals(Map.of("PARA_EL", 1L, "PARA_ELLA", 2L), facets.getCategories());
+        assertEquals(Map.of("Vainilla", 2L, "Oud", 1L, "Rosa", 1L), facets.getNotes());
+        assertEquals(List.of(1L, 1L, 0L, 1L, 0L),
+                facets.getPrices().stream().map(FacetsDTO.PriceBucketDTO::getCount).toList());
+    }
+
+    @Test
+    void refresh_PicksUpChangesMadeByAnotherInstance() {
+        when(perfumeService.listPublishedCatalog()).thenReturn(List.of(
+                perfume("1", "Dior", "Para Él", 150.0, 5, true, "Vainilla")));
+
+        columns.refresh();
+
+        assertEquals(1, columns.facets(new CatalogFilterDTO()).getTotal());
+    }
+
+    @Test
+    void refresh_DoesNotOverwriteALocalChangeReceivedDuringTheLoad() {
+        when(perfumeService.listPublishedCatalog()).thenAnswer(invocation -> {
+            columns.onPerfumeChanged(new PerfumeChangedEvent(List.of(9), PerfumeChangedEvent.Type.UPSERTED));
+            return List.of(perfume("1", "Dior", "Para Él", 150.0, 5, true, "Vainilla"));
+        });
+
+        columns.refresh();
+
+        // El siguiente refresco lo reintentará; de momento siguen las columnas anteriores
+        assertEquals(3, columns.facets(new CatalogFilterDTO()).getTotal());
+    }
+
+    @Test
+    void facets_EachFacetIgnoresItsOwnFilter() {
+        FacetsDTO facets = columns.facets(new CatalogFilterDTO("dior", null, null, null, true));
+
+        assertEquals(1, facets.getTotal());
+        // Marca: filtrada solo por stock, así que sigue mostrando Chanel
+        assertEquals(Map.of("Dior", 1L, "Chanel", 1L), facets.getBrands());
+        assertEquals(Map.of("PARA_EL", 1L), facets.getCategories());
+        assertEquals(Map.of("Vainilla", 1L, "Oud", 1L), facets.getNotes());
+    }
+
+    private static PerfumeDTO perfume(String id, String brand, String category, double price, int stock,
+                                      boolean published, String... notes) {
+        PerfumeDTO dto = new PerfumeDTO();
+        dto.setId(id);
+        dto.setBrand(brand);
+        dto.setCategory(category);
+        dto.setPrice(price);
+        dto.setStock(stock);
+        dto.setPublished(published);
+        dto.setNotes(List.of(notes));
+        return dto;
+    }
+}
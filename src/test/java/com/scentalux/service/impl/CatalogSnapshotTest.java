@@ -0,0 +1,74 @@
+package com.scentalux.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.scentalux.dto.PerfumeDTO;
+import com.scentalux.service.PerfumeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CatalogSnapshotTest {
+
+    private final PerfumeService perfumeService = mock(PerfumeService.class);
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        snapshot = new CatalogSnapshot(perfumeService, objectMapper);
+    }
+
+    @Test
+    void current_RendersPublishedCatalogWithGzipVariant() throws Exception {
+        when(perfumeService.listPublishedCatalog()).thenReturn(List.of(perfume("1", true)));
+
+        CatalogSnapshot.Snapshot current = snapshot.current();
+
+        PerfumeDTO[] rendered = objectMapper.readValue(current.json(), PerfumeDTO[].class);
+        assertEquals(1, rendered.length);
+        assertEquals("1", rendered[0].getId());
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(current.gzip()))) {
+            assertArrayEquals(current.json(), gzip.readAllBytes());
+        }
+        assertNotEquals(current.etag(), current.gzipEtag());
+    }
+
+    @Test
+    void rebuild_KeepsSnapshotWhenPublishedContentIsUnchanged() {
+        when(perfumeService.listPublishedCatalog()).thenReturn(List.of(perfume("1", true)));
+        CatalogSnapshot.Snapshot first = snapshot.current();
+
+        // p. ej. cambió solo un perfume no publicado: la consulta devuelve lo mismo
+        when(perfumeService.listPublishedCatalog()).thenReturn(List.of(perfume("1", true)));
+        snapshot.rebuild();
+
+        assertSame(first, snapshot.current());
+    }
+
+    @Test
+    void refresh_PicksUpChangesMadeByAnotherInstance() {
+        when(perfumeService.listPublishedCatalog()).thenReturn(List.of(perfume("1", true)));
+        CatalogSnapshot.Snapshot first = snapshot.current();
+
+        // Sin evento local: otra instancia publicó un perfume
+        when(perfumeService.listPublishedCatalog()).thenReturn(List.of(perfume("1", true), perfume("2", true)));
+        snapshot.refresh();
+
+        assertNotEquals(first.etag(), snapshot.current().etag());
+    }
+
+    private static PerfumeDTO perfume(String id, boolean published) {
+        PerfumeDTO dto = new PerfumeDTO();
+        dto.setId(id);
+        dto.setName("Perfume " + id);
+        dto.setPublished(published);
+        return dto;
+    }
+}
@@ -0,0 +1,150 @@
+package com.scentalux.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scentalux.dto.OrderDTO;
+import com.scentalux.exception.IdempotencyKeyReuseException;
+import com.scentalux.exception.OrderValidationException;
+import com.scentalux.repo.IIdempotencyRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Idempotencia contra H2: cada instancia del servicio hace de una réplica de la API
+ * con su propia memoria; solo comparten la tabla idempotency_keys.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class IdempotencyServiceImplTest {
+
+    private static final String USERNAME = "cliente@test.com";
+
+    @Autowired
+    private IIdempotencyRepo repo;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicInteger created = new AtomicInteger();
+
+    @Test
+    void replay_ReturnsStoredResponseWithoutRunningAgain() {
+        IdempotencyServiceImpl instance = newInstance();
+        String key = UUID.randomUUID().toString();
+
+        OrderDTO first = instance.executeOnce(USERNAME, key, cart(1), createOrder());
+        OrderDTO replay = instance.executeOnce(USERNAME, key, cart(1), createOrder());
+        // Otra réplica (o un reinicio): sin memoria, la respuesta sale de la tabla
+        OrderDTO fromTable = newInstance().executeOnce(USERNAME, key, cart(1), createOrder());
+
+        assertEquals(1, created.get());
+        assertEquals(first, replay);
+        assertEquals(first, fromTable);
+    }
+
+    @Test
+    void concurrentDuplicate_OnAnotherInstanceWaitsForTheFirst() throws Exception {
+        String key = UUID.randomUUID().toString();
+        CountDownLatch inserted = new CountDownLatch(1);
+        Supplier<OrderDTO> slowOrder = () -> {
+            inserted.countDown();
+            sleep(300);
+            return createOrder().get();
+        };
+
+        CompletableFuture<OrderDTO> first = CompletableFuture.supplyAsync(
+                () -> newInstance().executeOnce(USERNAME, key, cart(1), slowOrder));
+        assertTrue(inserted.await(10, TimeUnit.SECONDS));
+        // La clave ya está insertada pero sin confirmar: el INSERT del duplicado espera al commit
+        OrderDTO duplicate = newInstance().executeOnce(USERNAME, key, cart(1), createOrder());
+
+        assertEquals(first.get(10, TimeUnit.SECONDS), duplicate);
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void mismatchedPayload_IsRejected() {
+        IdempotencyServiceImpl instance = newInstance();
+        String key = UUID.randomUUID().toString();
+        instance.executeOnce(USERNAME, key, cart(1), createOrder());
+
+        assertThrows(IdempotencyKeyReuseException.class,
+                () -> instance.executeOnce(USERNAME, key, cart(2), createOrder()));
+        assertThrows(IdempotencyKeyReuseException.class,
+                () -> newInstance().executeOnce(USERNAME, key, cart(2), createOrder()));
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void failedAction_LeavesNoKeySoTheRetryRuns() {
+        IdempotencyServiceImpl instance = newInstance();
+        String key = UUID.randomUUID().toString();
+
+        assertThrows(OrderValidationException.class, () -> instance.executeOnce(USERNAME, key, cart(1), () -> {
+            throw new OrderValidationException("Stock insuficiente");
+        }));
+        assertFalse(repo.existsById(USERNAME + ":" + key));
+
+        instance.executeOnce(USERNAME, key, cart(1), createOrder());
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void executeOnce_RejectsKeysThatDoNotFitTheColumn() {
+        IdempotencyServiceImpl instance = newInstance();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> instance.executeOnce(USERNAME, "k".repeat(101), cart(1), createOrder()));
+        assertThrows(IllegalArgumentException.class,
+                () -> instance.executeOnce("u".repeat(150), "k".repeat(60), cart(1), createOrder()));
+    }
+
+    private IdempotencyServiceImpl newInstance() {
+        IdempotencyServiceImpl instance = new IdempotencyServiceImpl(repo, objectMapper, new SimpleMeterRegistry(),
+                transactionManager);
+        ReflectionTestUtils.setField(instance, "ttl", Duration.ofHours(24));
+        ReflectionTestUtils.setField(instance, "maxEntries", 100);
+        instance.registerMetrics();
+        return instance;
+    }
+
+    private Supplier<OrderDTO> createOrder() {
+        return () -> {
+            OrderDTO order = new OrderDTO();
+            order.setId(created.incrementAndGet());
+            order.setOrderNumber("ORD" + order.getId());
+            return order;
+        };
+    }
+
+    private static Map<String, Object> cart(int quantity) {
+        return Map.of("items", List.of(Map.of("perfumeId", 1, "quantity", quantity)), "paymentMethod", "YAPE");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.scentalux.service.impl;
+
+import com.scentalux.dto.CatalogFilterDTO;
+import com.scentalux.dto.PageDTO;
+import com.scentalux.dto.PerfumeDTO;
+import com.scentalux.model.Perfume;
+import com.scentalux.repo.PerfumeRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * searchCatalog contra H2: validación de parámetros, publicado forzado y orden
+ * estable entre páginas. El resto de colaboradores no intervienen y van simulados.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+class ImplPerfumeCatalogTest {
+
+    @Autowired
+    private PerfumeRepository repo;
+
+    @Autowired
+    private EntityManager em;
+
+    private ImplPerfume service;
+
+    private int sequence;
+
+    @BeforeEach
+    void setUp() {
+        service = new ImplPerfume(repo, mock(StockReservationLedger.class), mock(PerfumeCatalogCache.class),
+                mock(ApplicationEventPublisher.class), mock(PerfumeSearchIndex.class), mock(PerfumeNoteIndex.class));
+    }
+
+    @Test
+    void searchCatalog_OnlyReturnsPublished() {
+        Perfume visible = perfume(100.0, true);
+        perfume(100.0, false);
+        em.flush();
+
+        PageDTO<PerfumeDTO> page = service.searchCatalog(new CatalogFilterDTO(), 0, 10, "price", "asc");
+
+        assertEquals(List.of(visible.getId().toString()), page.getItems().stream().map(PerfumeDTO::getId).toList());
+        assertEquals(1, page.getTotalElements());
+    }
+
+    @Test
+    void searchCatalog_TieBreaksByIdSoPagesDoNotOverlap() {
+        // Mismo precio para todos: solo el id decide el orden
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            expected.add(perfume(100.0, true).getId().toString());
+        }
+        em.flush();
+
+        for (String direction : List.of("asc", "desc")) {
+            List<String> walked = new ArrayList<>();
+            PageDTO<PerfumeDTO> page;
+            int number = 0;
+            do {
+                page = service.searchCatalog(new CatalogFilterDTO(), number++, 3, "price", direction);
+                page.getItems().forEach(dto -> walked.add(dto.getId()));
+            } while (number < page.getTotalPages());
+
+            assertEquals(expected, walked, direction);
+            assertEquals(3, page.getTotalPages());
+        }
+    }
+
+    @Test
+    void searchCatalog_RejectsUnknownCategoryAndSortField() {
+        CatalogFilterDTO unknownCategory = new CatalogFilterDTO();
+        unknownCategory.setCategory("NIÑOS");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.searchCatalog(unknownCategory, 0, 10, "price", "asc"));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.searchCatalog(new CatalogFilterDTO(), 0, 10, "stock", "asc"));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.searchCatalog(new CatalogFilterDTO(), 0, 10, "price", "sideways"));
+    }
+
+    @Test
+    void searchCatalog_EnforcesPageBounds() {
+        CatalogFilterDTO filter = new CatalogFilterDTO();
+
+        assertThrows(IllegalArgumentException.class, () -> service.searchCatalog(filter, -1, 10, "price", "asc"));
+        assertThrows(IllegalArgumentException.class, () -> service.searchCatalog(filter, 0, 0, "price", "asc"));
+        assertThrows(IllegalArgumentException.class, () -> service.searchCatalog(filter, 0, 101, "price", "asc"));
+        assertEquals(100, service.searchCatalog(filter, 0, 100, "price", "asc").getSize());
+    }
+
+    private Perfume perfume(double price, boolean published) {
+        Perfume perfume = new Perfume();
+        perfume.setName("Perfume catálogo " + (++sequence));
+        perfume.setBrand("Marca");
+        perfume.setCategory("UNISEX");
+        perfume.setPrice(price);
+        perfume.setStock(1);
+        perfume.setPublished(published);
+        em.persist(perfume);
+        return perfume;
+    }
+}
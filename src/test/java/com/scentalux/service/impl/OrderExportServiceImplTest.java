@@ -0,0 +1,131 @@
+package com.scentalux.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scentalux.dto.OrderExportRowDTO;
+import com.scentalux.exception.OrderValidationException;
+import com.scentalux.model.OrderStatus;
+import com.scentalux.repo.IOrderRepo;
+import com.scentalux.service.OrderExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OrderExportServiceImplTest {
+
+    private static final LocalDateTime DATE = LocalDateTime.of(2025, 3, 1, 12, 30);
+
+    @Mock
+    private IOrderRepo orderRepo;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private OrderExportServiceImpl exportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        exportService = new OrderExportServiceImpl(orderRepo, objectMapper);
+    }
+
+    @Test
+    void csv_EscapesCommasQuotesAndNewlines() throws Exception {
+        stream(row(1, "ORD1", "Pérez, \"Juan\"", 10, "Línea 1\nLínea 2"),
+                row(2, "ORD2", "Ana", null, null));
+
+        String[] lines = export(OrderExportService.FORMAT_CSV).split("\n", -1);
+
+        assertEquals("orderNumber,orderDate,status,customerName,paymentMethod,"
+                + "subtotal,taxes,total,city,perfumeId,perfumeName,quantity,unitPrice,totalPrice", lines[0]);
+        // El salto de línea va dentro de las comillas: la fila ocupa dos líneas físicas
+        assertEquals("ORD1,2025-03-01T12:30,PENDIENTE,\"Pérez, \"\"Juan\"\"\",YAPE,100.0,8.0,108.0,Lima,"
+                + "10,\"Línea 1", lines[1]);
+        assertEquals("Línea 2\",1,100.0,100.0", lines[2]);
+        // Pedido sin items: columnas de item vacías
+        assertEquals("ORD2,2025-03-01T12:30,PENDIENTE,Ana,YAPE,100.0,8.0,108.0,Lima,,,,,", lines[3]);
+        assertEquals("", lines[4]);
+    }
+
+    @Test
+    void ndjson_GroupsItemsByOrderOnePerLine() throws Exception {
+        stream(row(1, "ORD1", "Pérez, \"Juan\"", 10, "Línea 1\nLínea 2"),
+                row(1, "ORD1", "Pérez, \"Juan\"", 11, "Otro"),
+                row(2, "ORD2", "Ana", null, null));
+
+        String[] lines = export(OrderExportService.FORMAT_NDJSON).split("\n");
+
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("ORD1", first.get("orderNumber").asText());
+        assertEquals("Pérez, \"Juan\"", first.get("customerName").asText());
+        assertEquals(2, first.get("items").size());
+        assertEquals("Línea 1\nLínea 2", first.get("items").get(0).get("perfumeName").asText());
+        assertEquals(11, first.get("items").get(1).get("perfumeId").asInt());
+
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals("ORD2", second.get("orderNumber").asText());
+        assertEquals(0, second.get("items").size());
+    }
+
+    @Test
+    void csv_PrefixesTextCellsThatLookLikeFormulas() throws Exception {
+        stream(row(1, "ORD1", "=HYPERLINK(\"http://x\")", 10, "+Eau"),
+                row(2, "ORD2", "@Ana", 11, "-Noir"));
+
+        String[] lines = export(OrderExportService.FORMAT_CSV).split("\n");
+
+        assertEquals("ORD1,2025-03-01T12:30,PENDIENTE,\"'=HYPERLINK(\"\"http://x\"\")\",YAPE,100.0,8.0,108.0,Lima,"
+                + "10,'+Eau,1,100.0,100.0", lines[1]);
+        assertEquals("ORD2,2025-03-01T12:30,PENDIENTE,'@Ana,YAPE,100.0,8.0,108.0,Lima,"
+                + "11,'-Noir,1,100.0,100.0", lines[2]);
+    }
+
+    @Test
+    void export_StreamsEveryChunk() throws Exception {
+        List<OrderExportRowDTO> rows = new ArrayList<>();
+        IntStream.rangeClosed(1, 2500).forEach(i -> rows.add(row(i, "ORD" + i, "Cliente", i, "Perfume")));
+
+        when(orderRepo.streamExportRows(any(), any(), any())).thenReturn(rows.stream());
+        assertEquals(2501, export(OrderExportService.FORMAT_CSV).split("\n").length);
+
+        when(orderRepo.streamExportRows(any(), any(), any())).thenReturn(rows.stream());
+        assertEquals(2500, export(OrderExportService.FORMAT_NDJSON).split("\n").length);
+    }
+
+    @Test
+    void export_RejectsUnknownFormat() {
+        assertThrows(OrderValidationException.class, () -> export("xml"));
+        verify(orderRepo, never()).streamExportRows(any(), any(), any());
+    }
+
+    private void stream(OrderExportRowDTO... rows) {
+        when(orderRepo.streamExportRows(any(), any(), any())).thenReturn(Stream.of(rows));
+    }
+
+    private String export(String format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportOrders(format, null, null, null, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static OrderExportRowDTO row(int orderId, String orderNumber, String customer,
+                                         Integer perfumeId, String perfumeName) {
+        boolean hasItem = perfumeId != null;
+        return new OrderExportRowDTO(orderId, orderNumber, DATE, OrderStatus.PENDIENTE, customer, "YAPE",
+                100.0, 8.0, 108.0, "Lima", perfumeId, perfumeName,
+                hasItem ? 1 : null, hasItem ? 100.0 : null, hasItem ? 100.0 : null);
+    }
+}
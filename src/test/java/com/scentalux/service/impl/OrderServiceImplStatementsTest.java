@@ -0,0 +1,159 @@
+package com.scentalux.service.impl;
+
+import com.scentalux.dto.CreateOrderDTO;
+import com.scentalux.dto.OrderItemDTO;
+import com.scentalux.model.Perfume;
+import com.scentalux.model.User;
+import com.scentalux.repo.IUserRepo;
+import com.scentalux.repo.PerfumeRepository;
+import com.scentalux.service.OrderService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mockingDetails;
+
+/**
+ * Cuenta los viajes a la base de datos de createOrder contra H2: el coste fijo no depende
+ * del tamaño del carrito y cada línea solo añade el INSERT de su item.
+ * Las sentencias de Hibernate se cuentan por hilo (StatementInspector) para no sumar las
+ * recargas del catálogo que otros hilos lanzan en segundo plano; el batch de stock va por
+ * JdbcTemplate y se cuenta como un viaje. Las cargas de entidades se comprueban con
+ * Hibernate Statistics.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.scentalux.service.impl.OrderServiceImplStatementsTest$ThreadStatementCounter"
+})
+@ActiveProfiles("h2")
+class OrderServiceImplStatementsTest {
+
+    private static final String USERNAME = "sql@test.com";
+
+    // Usuario y roles, perfumes (una consulta), batch de UPDATE condicionales de stock e INSERT del pedido
+    private static final long FIXED_ROUND_TRIPS = 5;
+
+    // INSERT del item (IDENTITY: sin batch); la venta del ranking va tras el commit
+    private static final long PER_LINE_ROUND_TRIPS = 1;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PerfumeRepository perfumeRepo;
+
+    @Autowired
+    private IUserRepo userRepo;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockitoSpyBean
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Integer> perfumeIds = new ArrayList<>();
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        if (userRepo.findOneByUsername(USERNAME) == null) {
+            User user = new User();
+            user.setUsername(USERNAME);
+            user.setPassword("x");
+            user.setEnabled(true);
+            userRepo.save(user);
+        }
+        for (int i = 0; i < 20; i++) {
+            Perfume perfume = new Perfume();
+            perfume.setName("Perfume SQL " + System.nanoTime() + "-" + i);
+            perfume.setBrand("Marca");
+            perfume.setPrice(100.0);
+            perfume.setCategory("UNISEX");
+            perfume.setStock(100);
+            perfumeIds.add(perfumeRepo.save(perfume).getId());
+        }
+    }
+
+    @Test
+    void createOrder_RoundTripsAreFixedExceptItemInserts() {
+        long single = roundTripsFor(1);
+        long twenty = roundTripsFor(20);
+
+        assertEquals(FIXED_ROUND_TRIPS + PER_LINE_ROUND_TRIPS, single);
+        assertEquals(FIXED_ROUND_TRIPS + 20 * PER_LINE_ROUND_TRIPS, twenty);
+    }
+
+    @Test
+    void createOrder_LoadsPerfumesWithOneQuery() {
+        statistics.clear();
+        orderService.createOrder(cart(20), USERNAME);
+
+        // Los 20 perfumes llegan en la misma consulta, sin SELECT por id ni cargas perezosas
+        assertEquals(20, statistics.getEntityStatistics(Perfume.class.getName()).getLoadCount());
+        assertEquals(0, statistics.getEntityFetchCount());
+    }
+
+    // Se cuenta dentro de la transacción del pedido: las recargas del catálogo tras el commit no entran
+    private long roundTripsFor(int lines) {
+        return transactionTemplate.execute(status -> {
+            ThreadStatementCounter.reset();
+            clearInvocations(jdbcTemplate);
+            orderService.createOrder(cart(lines), USERNAME);
+            // Solo la llamada pública: JdbcTemplate delega internamente en otras sobrecargas
+            long batches = mockingDetails(jdbcTemplate).getInvocations().stream()
+                    .filter(invocation -> invocation.getMethod().getName().equals("batchUpdate")
+                            && Arrays.equals(invocation.getMethod().getParameterTypes(),
+                                    new Class<?>[]{String.class, List.class}))
+                    .count();
+            return ThreadStatementCounter.count() + batches;
+        });
+    }
+
+    private CreateOrderDTO cart(int lines) {
+        List<OrderItemDTO> items = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            items.add(new OrderItemDTO(perfumeIds.get(i), 1));
+        }
+        return new CreateOrderDTO(items, "YAPE", "Cliente", "Av. Siempre Viva 123", "Lima", "15001", null);
+    }
+
+    public static class ThreadStatementCounter implements StatementInspector {
+
+        private static final ThreadLocal<Long> COUNT = ThreadLocal.withInitial(() -> 0L);
+
+        static void reset() {
+            COUNT.set(0L);
+        }
+
+        static long count() {
+            return COUNT.get();
+        }
+
+        @Override
+        public String inspect(String sql) {
+            COUNT.set(COUNT.get() + 1);
+            return sql;
+        }
+    }
+}
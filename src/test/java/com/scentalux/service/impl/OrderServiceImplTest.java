@@ -0,0 +1,386 @@
+package com.scentalux.service.impl;
+
+import com.scentalux.dto.BulkStatusResultDTO;
+import com.scentalux.dto.BulkStatusUpdateDTO;
+import com.scentalux.dto.CreateOrderDTO;
+import com.scentalux.dto.CursorPageDTO;
+import com.scentalux.dto.OrderDTO;
+import com.scentalux.dto.OrderItemDTO;
+import com.scentalux.exception.OrderValidationException;
+import com.scentalux.model.Order;
+import com.scentalux.model.OrderStatus;
+import com.scentalux.model.Perfume;
+import com.scentalux.model.User;
+import com.scentalux.repo.IOrderItemRepo;
+import com.scentalux.repo.IOrderRepo;
+import com.scentalux.repo.IUserRepo;
+import com.scentalux.repo.PerfumeRepository;
+import com.scentalux.service.OrderNumberGenerator;
+import com.scentalux.util.OrderCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class OrderServiceImplTest {
+
+    @Mock
+    private IOrderRepo orderRepo;
+
+    @Mock
+    private IOrderItemRepo orderItemRepo;
+
+    @Mock
+    private IUserRepo userRepo;
+
+    @Mock
+    private PerfumeRepository perfumeRepo;
+
+    @Mock
+    private StockReservationLedger stockLedger;
+
+    @Mock
+    private OrderNumberGenerator orderNumberGenerator;
+
+    @Mock
+    private OrderStatusCounters statusCounters;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PerfumeRankings perfumeRankings;
+
+    @Mock
+    private JdbcTemplate jdbc;
+
+    @InjectMocks
+    private OrderServiceImpl orderService;
+
+    private final List<Perfume> catalog = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        User user = new User();
+        user.setUsername("cliente@test.com");
+        when(userRepo.findOneByUsername("cliente@test.com")).thenReturn(user);
+
+        for (int i = 1; i <= 20; i++) {
+            Perfume perfume = new Perfume();
+            perfume.setId(i);
+            perfume.setName("Perfume " + i);
+            perfume.setBrand("Marca");
+            perfume.setPrice(100.0);
+            perfume.setStock(10);
+            catalog.add(perfume);
+        }
+
+        when(perfumeRepo.findAllById(anyIterable())).thenAnswer(inv -> {
+            Collection<?> ids = (Collection<?>) inv.getArgument(0);
+            return catalog.stream().filter(p -> ids.contains(p.getId())).toList();
+        });
+        when(jdbc.batchUpdate(anyString(), anyList())).thenAnswer(inv -> {
+            List<Object[]> rows = inv.getArgument(1);
+            return rows.stream().mapToInt(row -> {
+                int quantity = (Integer) row[0];
+                Perfume perfume = catalog.get((Integer) row[1] - 1);
+                if (perfume.getStock() < quantity) {
+                    return 0;
+                }
+                perfume.setStock(perfume.getStock() - quantity);
+                return 1;
+            }).toArray();
+        });
+        when(orderRepo.save(any(Order.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void createOrder_LoadsPerfumesOncePerCart() {
+        // Carrito de 1 línea
+        orderService.createOrder(cart(1), "cliente@test.com");
+        verify(perfumeRepo, times(1)).findAllById(anyIterable());
+
+        clearInvocations(perfumeRepo);
+
+        // Carrito de 20 líneas: una sola lectura y los 20 UPDATE condicionales en un único batch
+        orderService.createOrder(cart(20), "cliente@test.com");
+        verify(perfumeRepo, times(1)).findAllById(anyIterable());
+        verify(jdbc, times(2)).batchUpdate(anyString(), anyList());
+        verify(perfumeRepo, never()).decrementStock(anyInt(), anyInt());
+        verify(perfumeRepo, never()).findById(anyInt());
+        verify(perfumeRepo, never()).save(any(Perfume.class));
+        verify(perfumeRepo, never()).saveAll(anyIterable());
+    }
+
+    @Test
+    void createOrder_MergesDuplicateLines() {
+        CreateOrderDTO dto = cart(0);
+        dto.getItems().add(new OrderItemDTO(1, 2));
+        dto.getItems().add(new OrderItemDTO(1, 3));
+
+        OrderDTO result = orderService.createOrder(dto, "cliente@test.com");
+
+        assertEquals(1, result.getItems().size());
+        assertEquals(5, result.getItems().get(0).getQuantity());
+        assertEquals(5, catalog.get(0).getStock());
+        verify(perfumeRankings).recordSale(Map.of(1, 5));
+    }
+
+    @Test
+    void createOrder_RejectsUnknownPerfume() {
+        CreateOrderDTO dto = cart(0);
+        dto.getItems().add(new OrderItemDTO(999, 1));
+
+        OrderValidationException ex = assertThrows(OrderValidationException.class,
+                () -> orderService.createOrder(dto, "cliente@test.com"));
+        assertEquals("Perfume no encontrado: 999", ex.getMessage());
+    }
+
+    @Test
+    void createOrder_RejectsInsufficientStock() {
+        CreateOrderDTO dto = cart(0);
+        dto.getItems().add(new OrderItemDTO(1, 11));
+
+        OrderValidationException ex = assertThrows(OrderValidationException.class,
+                () -> orderService.createOrder(dto, "cliente@test.com"));
+        assertEquals("Stock insuficiente para: Perfume 1. Stock disponible: 10, solicitado: 11", ex.getMessage());
+    }
+
+    @Test
+    void createOrder_RejectsWhenConditionalDecrementAffectsNoRows() {
+        // Otro checkout concurrente agotó el stock del perfume 2 después de la lectura
+        when(jdbc.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 0});
+        when(perfumeRepo.findAvailableStock(2)).thenReturn(1L);
+        CreateOrderDTO dto = cart(0);
+        dto.getItems().add(new OrderItemDTO(1, 1));
+        dto.getItems().add(new OrderItemDTO(2, 2));
+
+        OrderValidationException ex = assertThrows(OrderValidationException.class,
+                () -> orderService.createOrder(dto, "cliente@test.com"));
+        assertEquals("Stock insuficiente para: Perfume 2. Stock disponible: 1, solicitado: 2", ex.getMessage());
+        verify(orderRepo, never()).save(any(Order.class));
+    }
+
+    @Test
+    void updateOrderStatus_RejectsIllegalTransition() {
+        Order delivered = new Order();
+        delivered.setId(5);
+        delivered.setStatus(OrderStatus.ENTREGADO);
+        when(orderRepo.findById(5)).thenReturn(Optional.of(delivered));
+
+        assertThrows(OrderValidationException.class, () -> orderService.updateOrderStatus(5, "PENDIENTE"));
+        verify(orderRepo, never()).save(any(Order.class));
+        verify(statusCounters, never()).transitioned(any(), any(), anyLong());
+    }
+
+    @Test
+    void updateOrderStatus_MovesCounters() {
+        Order pending = new Order();
+        pending.setId(6);
+        when(orderRepo.findById(6)).thenReturn(Optional.of(pending));
+        when(orderRepo.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        OrderDTO result = orderService.updateOrderStatus(6, "confirmado");
+
+        assertEquals("CONFIRMADO", result.getStatus());
+        verify(statusCounters).transitioned(OrderStatus.PENDIENTE, OrderStatus.CONFIRMADO, 1);
+    }
+
+    @Test
+    void updateOrderStatus_CancellationReversesSales() {
+        Order confirmed = new Order();
+        confirmed.setId(7);
+        confirmed.setStatus(OrderStatus.CONFIRMADO);
+        when(orderRepo.findById(7)).thenReturn(Optional.of(confirmed));
+
+        orderService.updateOrderStatus(7, "CANCELADO");
+        // Un pedido cancelado ya no puede volver a descontarse
+        assertThrows(OrderValidationException.class, () -> orderService.updateOrderStatus(7, "CANCELADO"));
+
+        verify(perfumeRankings, times(1)).reverseSales(List.of(7));
+    }
+
+    @Test
+    void findOrdersPage_ReturnsCursorOfLastItemWhenMorePagesExist() {
+        LocalDateTime date = LocalDateTime.of(2025, 3, 1, 12, 0);
+        when(orderRepo.findPage(isNull(), isNull(), isNull(), isNull(), isNull(), any(Pageable.class)))
+                .thenReturn(List.of(order(9, date), order(8, date), order(7, date)));
+
+        CursorPageDTO<OrderDTO> page = orderService.findOrdersPage(null, 2, null, null, null);
+
+        assertEquals(List.of(9, 8), page.getItems().stream().map(OrderDTO::getId).toList());
+        assertEquals(new OrderCursor(date, 8), OrderCursor.decode(page.getNextCursor()));
+        verify(orderRepo).findPage(isNull(), isNull(), isNull(), isNull(), isNull(), eq(PageRequest.of(0, 3)));
+    }
+
+    @Test
+    void findOrdersPage_LastPageHasNoCursor() {
+        LocalDateTime date = LocalDateTime.of(2025, 3, 1, 12, 0);
+        String cursor = new OrderCursor(date, 8).encode();
+        when(orderRepo.findPage(isNull(), isNull(), isNull(), eq(date), eq(8), any(Pageable.class)))
+                .thenReturn(List.of(order(7, date)));
+
+        CursorPageDTO<OrderDTO> page = orderService.findOrdersPage(cursor, 2, null, null, null);
+
+        assertEquals(List.of(7), page.getItems().stream().map(OrderDTO::getId).toList());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void findOrdersPage_RejectsMalformedCursor() {
+        assertThrows(OrderValidationException.class,
+                () -> orderService.findOrdersPage("no-es-un-cursor", 2, null, null, null));
+        verify(orderRepo, never()).findPage(any(), any(), any(), any(), any(), any(Pageable.class));
+    }
+
+    @Test
+    void bulkUpdateStatus_ProcessesIdsInChunksOf500() {
+        List<Integer> ids = IntStream.rangeClosed(1, 1200).boxed().toList();
+        when(orderRepo.findStatusByIdIn(anyCollection())).thenAnswer(inv -> {
+            Collection<Integer> chunk = inv.getArgument(0);
+            return chunk.stream().map(id -> statusView(id, OrderStatus.PENDIENTE)).toList();
+        });
+        when(orderRepo.updateStatus(anyCollection(), eq(OrderStatus.CONFIRMADO), anyCollection()))
+                .thenAnswer(inv -> ((Collection<?>) inv.getArgument(0)).size());
+
+        List<BulkStatusResultDTO> results = orderService.bulkUpdateStatus(
+                new BulkStatusUpdateDTO(ids, null, "CONFIRMADO"));
+
+        assertEquals(1200, results.size());
+        assertTrue(results.stream().allMatch(r -> r.getResult() == BulkStatusResultDTO.Result.UPDATED));
+        ArgumentCaptor<Collection<Integer>> chunks = ArgumentCaptor.forClass(Collection.class);
+        verify(orderRepo, times(3)).findStatusByIdIn(chunks.capture());
+        assertEquals(List.of(500, 500, 200), chunks.getAllValues().stream().map(Collection::size).toList());
+        verify(orderRepo, times(3)).updateStatus(anyCollection(), eq(OrderStatus.CONFIRMADO),
+                eq(OrderStatus.sourcesOf(OrderStatus.CONFIRMADO)));
+        verify(statusCounters, times(2)).transitioned(OrderStatus.PENDIENTE, OrderStatus.CONFIRMADO, 500L);
+        verify(statusCounters).transitioned(OrderStatus.PENDIENTE, OrderStatus.CONFIRMADO, 200L);
+    }
+
+    @Test
+    void bulkUpdateStatus_ClassifiesIllegalAndMissingOrders() {
+        when(orderRepo.findStatusByIdIn(anyCollection())).thenReturn(List.of(
+                statusView(1, OrderStatus.PENDIENTE),
+                statusView(2, OrderStatus.ENTREGADO)));
+        when(orderRepo.findStatusByOrderNumberIn(anyCollection())).thenReturn(List.of(
+                statusView(4, OrderStatus.CONFIRMADO)));
+        when(orderRepo.updateStatus(anyCollection(), eq(OrderStatus.CANCELADO), anyCollection()))
+                .thenAnswer(inv -> ((Collection<?>) inv.getArgument(0)).size());
+
+        List<BulkStatusResultDTO> results = orderService.bulkUpdateStatus(
+                new BulkStatusUpdateDTO(List.of(1, 2, 3), List.of("ORD4"), "cancelado"));
+
+        assertEquals(List.of(
+                new BulkStatusResultDTO("1", BulkStatusResultDTO.Result.UPDATED),
+                new BulkStatusResultDTO("2", BulkStatusResultDTO.Result.ILLEGAL_TRANSITION),
+                new BulkStatusResultDTO("3", BulkStatusResultDTO.Result.NOT_FOUND),
+                new BulkStatusResultDTO("ORD4", BulkStatusResultDTO.Result.UPDATED)), results);
+        // Solo los pedidos con una transición válida llegan al UPDATE
+        verify(orderRepo).updateStatus(eq(Set.of(1)), eq(OrderStatus.CANCELADO), anyCollection());
+        verify(orderRepo).updateStatus(eq(Set.of(4)), eq(OrderStatus.CANCELADO), anyCollection());
+        verify(statusCounters).transitioned(OrderStatus.PENDIENTE, OrderStatus.CANCELADO, 1L);
+        verify(statusCounters).transitioned(OrderStatus.CONFIRMADO, OrderStatus.CANCELADO, 1L);
+        verify(perfumeRankings).reverseSales(Set.of(1));
+        verify(perfumeRankings).reverseSales(Set.of(4));
+    }
+
+    @Test
+    void bulkUpdateStatus_RereadsWhenUpdateCountDoesNotMatch() {
+        // Lectura inicial: los tres pendientes
+        when(orderRepo.findStatusByIdIn(anyCollection()))
+                .thenReturn(List.of(
+                        statusView(1, OrderStatus.PENDIENTE),
+                        statusView(2, OrderStatus.PENDIENTE),
+                        statusView(3, OrderStatus.PENDIENTE)))
+                // Relectura: el 2 se canceló entre la lectura y el UPDATE
+                .thenReturn(List.of(
+                        statusView(1, OrderStatus.CONFIRMADO),
+                        statusView(2, OrderStatus.CANCELADO),
+                        statusView(3, OrderStatus.CONFIRMADO)));
+        when(orderRepo.updateStatus(anyCollection(), eq(OrderStatus.CONFIRMADO), anyCollection())).thenReturn(2);
+
+        List<BulkStatusResultDTO> results = orderService.bulkUpdateStatus(
+                new BulkStatusUpdateDTO(List.of(1, 2, 3), null, "CONFIRMADO"));
+
+        assertEquals(List.of(
+                new BulkStatusResultDTO("1", BulkStatusResultDTO.Result.UPDATED),
+                new BulkStatusResultDTO("2", BulkStatusResultDTO.Result.ILLEGAL_TRANSITION),
+                new BulkStatusResultDTO("3", BulkStatusResultDTO.Result.UPDATED)), results);
+        verify(orderRepo, times(2)).findStatusByIdIn(anyCollection());
+        verify(statusCounters).transitioned(OrderStatus.PENDIENTE, OrderStatus.CONFIRMADO, 2L);
+        verifyNoMoreInteractions(statusCounters);
+    }
+
+    @Test
+    void bulkUpdateStatus_RejectsUnknownStatusAndOversizedRequests() {
+        assertThrows(OrderValidationException.class,
+                () -> orderService.bulkUpdateStatus(new BulkStatusUpdateDTO(List.of(1), null, "PAGADO")));
+        List<Integer> tooMany = IntStream.rangeClosed(1, 10_001).boxed().toList();
+        assertThrows(OrderValidationException.class,
+                () -> orderService.bulkUpdateStatus(new BulkStatusUpdateDTO(tooMany, null, "CONFIRMADO")));
+        verifyNoInteractions(orderRepo);
+    }
+
+    private static IOrderRepo.StatusView statusView(Integer id, OrderStatus status) {
+        return new IOrderRepo.StatusView() {
+            @Override
+            public Integer getId() {
+                return id;
+            }
+
+            @Override
+            public String getOrderNumber() {
+                return "ORD" + id;
+            }
+
+            @Override
+            public OrderStatus getStatus() {
+                return status;
+            }
+        };
+    }
+
+    private static Order order(int id, LocalDateTime date) {
+        Order order = new Order();
+        order.setId(id);
+        order.setOrderNumber("ORD" + id);
+        order.setOrderDate(date);
+        return order;
+    }
+
+    private CreateOrderDTO cart(int lines) {
+        List<OrderItemDTO> items = new ArrayList<>();
+        for (int i = 1; i <= lines; i++) {
+            items.add(new OrderItemDTO(i, 1));
+        }
+        return new CreateOrderDTO(items, "YAPE", "Cliente", "Av. Siempre Viva 123", "Lima", "15001", null);
+    }
+}
@@ -0,0 +1,58 @@
+package com.scentalux.service.impl;
+
+import com.scentalux.model.OrderStatus;
+import com.scentalux.repo.IOrderRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OrderStatusCountersTest {
+
+    private IOrderRepo orderRepo;
+    private OrderStatusCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        orderRepo = mock(IOrderRepo.class);
+        counters = new OrderStatusCounters(orderRepo, new SimpleMeterRegistry());
+        counters.init();
+    }
+
+    @Test
+    void reconcile_AlignsCountersWithTheDatabase() {
+        counters.created(OrderStatus.CANCELADO);
+        List<IOrderRepo.StatusCount> rows = List.of(row(OrderStatus.PENDIENTE, 5L));
+        when(orderRepo.countByStatus()).thenReturn(rows);
+
+        counters.reconcile();
+
+        assertEquals(5, counters.count(OrderStatus.PENDIENTE));
+        assertEquals(0, counters.count(OrderStatus.CANCELADO));
+    }
+
+    @Test
+    void reconcile_KeepsAnIncrementAppliedDuringTheCount() {
+        // Pedido confirmado después de la lectura del COUNT, con su afterCommit antes de aplicar la corrección
+        List<IOrderRepo.StatusCount> rows = List.of(row(OrderStatus.PENDIENTE, 5L));
+        when(orderRepo.countByStatus()).thenAnswer(invocation -> {
+            counters.created(OrderStatus.PENDIENTE);
+            return rows;
+        });
+
+        counters.reconcile();
+
+        assertEquals(6, counters.count(OrderStatus.PENDIENTE));
+    }
+
+    private static IOrderRepo.StatusCount row(OrderStatus status, Long total) {
+        IOrderRepo.StatusCount row = mock(IOrderRepo.StatusCount.class);
+        when(row.getStatus()).thenReturn(status);
+        when(row.getTotal()).thenReturn(total);
+        return row;
+    }
+}
@@ -0,0 +1,141 @@
+package com.scentalux.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scentalux.dto.PerfumeDTO;
+import com.scentalux.event.PerfumeChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerfumeCatalogCacheTest {
+
+    private PerfumeCatalogCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new PerfumeCatalogCache(new SimpleMeterRegistry(), new ObjectMapper(), 100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void getAll_LoadsOnceAndWarmsEntries() {
+        cache.getAll(this::load);
+        cache.getAll(this::load);
+        PerfumeDTO first = cache.get(1, id -> fail("Should be served from the list load"));
+
+        assertEquals(1, loads.get());
+        assertEquals("Perfume 1", first.getName());
+    }
+
+    @Test
+    void onPerfumeChanged_EvictsChangedIdsAndList() {
+        cache.getAll(this::load);
+
+        cache.onPerfumeChanged(new PerfumeChangedEvent(List.of(1), PerfumeChangedEvent.Type.STOCK_CHANGED));
+
+        AtomicInteger reloads = new AtomicInteger();
+        cache.get(1, id -> {
+            reloads.incrementAndGet();
+            return dto(id);
+        });
+        cache.get(2, id -> fail("Unchanged entries stay cached"));
+        cache.getAll(this::load);
+
+        assertEquals(1, reloads.get());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void getAll_DiscardsListLoadedBeforeAnInvalidation() {
+        // El cambio se confirma mientras el listado aún se está leyendo
+        cache.getAll(() -> {
+            List<PerfumeDTO> stale = load();
+            cache.onPerfumeChanged(new PerfumeChangedEvent(List.of(1), PerfumeChangedEvent.Type.UPSERTED));
+            return stale;
+        });
+
+        AtomicInteger reloads = new AtomicInteger();
+        cache.get(1, id -> {
+            reloads.incrementAndGet();
+            return dto(id);
+        });
+        cache.getAll(this::load);
+
+        assertEquals(1, reloads.get());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void getAllByIds_DiscardsEntriesLoadedBeforeAnInvalidation() {
+        cache.getAll(List.of(1, 2), missing -> {
+            Map<Integer, PerfumeDTO> stale = new HashMap<>();
+            missing.forEach(id -> stale.put(id, dto(id)));
+            cache.onPerfumeChanged(new PerfumeChangedEvent(List.of(1), PerfumeChangedEvent.Type.UPSERTED));
+            return stale;
+        });
+
+        AtomicInteger reloads = new AtomicInteger();
+        Map<Integer, PerfumeDTO> found = cache.getAll(List.of(1, 2), missing -> {
+            reloads.addAndGet(missing.size());
+            Map<Integer, PerfumeDTO> fresh = new HashMap<>();
+            missing.forEach(id -> fresh.put(id, dto(id)));
+            return fresh;
+        });
+
+        assertEquals(2, reloads.get());
+        assertEquals(2, found.size());
+        // Sin invalidaciones de por medio la carga sí queda en caché
+        cache.get(1, id -> fail("Should be cached"));
+    }
+
+    @Test
+    void rendered_SerializesOnceUntilThePerfumeChanges() {
+        AtomicInteger renders = new AtomicInteger();
+        PerfumeCatalogCache.Rendered first = cache.rendered(1, () -> {
+            renders.incrementAndGet();
+            return dto(1);
+        });
+        PerfumeCatalogCache.Rendered again = cache.rendered(1, () -> fail("Should be served from the cache"));
+
+        assertSame(first, again);
+        assertTrue(first.etag().matches("\"[0-9a-f]{32}\""));
+
+        // Otro perfume no la invalida; el propio sí, igual que las vistas
+        cache.rendered("admin", () -> List.of(dto(1), dto(2)));
+        cache.onPerfumeChanged(new PerfumeChangedEvent(List.of(2), PerfumeChangedEvent.Type.UPSERTED));
+        cache.rendered(1, () -> fail("Unchanged perfume stays rendered"));
+        cache.rendered("admin", () -> {
+            renders.incrementAndGet();
+            return List.of();
+        });
+        cache.onPerfumeChanged(new PerfumeChangedEvent(List.of(1), PerfumeChangedEvent.Type.UPSERTED));
+        PerfumeCatalogCache.Rendered reloaded = cache.rendered(1, () -> {
+            renders.incrementAndGet();
+            return dto(1);
+        });
+
+        assertEquals(3, renders.get());
+        // Mismo contenido, mismo ETag
+        assertEquals(first.etag(), reloaded.etag());
+    }
+
+    private List<PerfumeDTO> load() {
+        loads.incrementAndGet();
+        return List.of(dto(1), dto(2));
+    }
+
+    private static PerfumeDTO dto(Integer id) {
+        PerfumeDTO dto = new PerfumeDTO();
+        dto.setId(id.toString());
+        dto.setName("Perfume " + id);
+        return dto;
+    }
+}
@@ -0,0 +1,151 @@
+package com.scentalux.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scentalux.dto.ImportResultDTO;
+import com.scentalux.event.PerfumeChangedEvent;
+import com.scentalux.service.PerfumeImportService;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PerfumeImportServiceImplTest {
+
+    private final NamedParameterJdbcTemplate jdbc = mock(NamedParameterJdbcTemplate.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private PerfumeImportServiceImpl importService;
+
+    @BeforeEach
+    void setUp() {
+        when(jdbc.getJdbcTemplate()).thenReturn(jdbcTemplate);
+        importService = new PerfumeImportServiceImpl(jdbc, mock(PlatformTransactionManager.class), new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), eventPublisher,
+                mock(StockReservationLedger.class), 2);
+    }
+
+    @Test
+    void importPerfumes_Csv_ReportsInvalidRowsAndInsertsTheRest() throws Exception {
+        String csv = """
+                name,brand,price,stock,category,notes
+                Sauvage,Dior,120.5,10,Para Él,Bergamota|Ámbar
+                "Nº 5, L'Eau",Chanel,abc,3,Para Ella,
+                Aventus,Creed,300,2,Niños,
+                ,Tom Ford,200,1,Unisex,
+                Libre,YSL,95,4,Para Ella,Lavanda
+                """;
+
+        ImportResultDTO result = importService.importPerfumes(PerfumeImportService.FORMAT_CSV, stream(csv));
+
+        assertEquals(5, result.getTotal());
+        assertEquals(2, result.getInserted());
+        assertEquals(3, result.getFailed());
+        assertEquals(List.of(2L, 3L, 4L), result.getErrors().stream().map(ImportResultDTO.RowErrorDTO::getRow).toList());
+        assertEquals(List.of("price: no es un número"), result.getErrors().get(0).getErrors());
+
+        // Lote de 2: una sola transacción con ambos perfumes y sus notas
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> inserts = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO perfumes"), inserts.capture());
+        assertEquals(List.of("Sauvage", "Libre"), inserts.getValue().stream().map(row -> row[0]).toList());
+        assertEquals("PARA_EL", inserts.getValue().get(0)[6]);
+        verify(eventPublisher).publishEvent(any(PerfumeChangedEvent.class));
+    }
+
+    @Test
+    void importPerfumes_Json_WrongTypeFailsOnlyThatRow() throws Exception {
+        String json = """
+                [{"name": "Sauvage", "brand": "Dior", "price": 120, "stock": 10, "category": "Para Él"},
+                 {"name": "Libre", "brand": "YSL", "price": "caro", "stock": 4, "category": "Para Ella"},
+                 {"name": "Sauvage", "brand": "DIOR", "price": 130, "stock": 8, "category": "Para Él"}]
+                """;
+
+        ImportResultDTO result = importService.importPerfumes(PerfumeImportService.FORMAT_JSON, stream(json));
+
+        assertEquals(3, result.getTotal());
+        assertEquals(1, result.getFailed());
+        assertEquals(2L, result.getErrors().get(0).getRow());
+        // Misma clave (sin distinguir mayúsculas) dos veces: se escriben en lotes separados y en orden
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("INSERT INTO perfumes"), anyList());
+        verify(jdbc, atLeast(2)).query(anyString(), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void importPerfumes_KeepsNotesOfUpdatedRowsThatOmitThem() throws Exception {
+        existing(Map.of("Dior|Sauvage", 1, "YSL|Libre", 2));
+        String json = """
+                [{"name": "Sauvage", "brand": "Dior", "price": 120, "stock": 10, "category": "Para Él"},
+                 {"name": "Libre", "brand": "YSL", "price": 95, "stock": 4, "category": "Para Ella", "notes": ["Lavanda"]}]
+                """;
+
+        ImportResultDTO result = importService.importPerfumes(PerfumeImportService.FORMAT_JSON, stream(json));
+
+        assertEquals(2, result.getUpdated());
+        ArgumentCaptor<SqlParameterSource> deleted = ArgumentCaptor.forClass(SqlParameterSource.class);
+        verify(jdbc).update(startsWith("DELETE FROM perfume_notes"), deleted.capture());
+        assertEquals(List.of(2), deleted.getValue().getValue("ids"));
+    }
+
+    @Test
+    void importPerfumes_CsvWithoutNotesColumnNeverDeletesNotes() throws Exception {
+        existing(Map.of("Dior|Sauvage", 1));
+        String csv = """
+                name,brand,price,stock,category
+                Sauvage,Dior,130,8,Para Él
+                """;
+
+        ImportResultDTO result = importService.importPerfumes(PerfumeImportService.FORMAT_CSV, stream(csv));
+
+        assertEquals(1, result.getUpdated());
+        verify(jdbc, never()).update(startsWith("DELETE FROM perfume_notes"), any(SqlParameterSource.class));
+    }
+
+    @Test
+    void importPerfumes_CsvEmptyNotesCellClearsNotes() throws Exception {
+        existing(Map.of("Dior|Sauvage", 1));
+        String csv = """
+                name,brand,price,stock,category,notes
+                Sauvage,Dior,130,8,Para Él,
+                """;
+
+        importService.importPerfumes(PerfumeImportService.FORMAT_CSV, stream(csv));
+
+        verify(jdbc).update(startsWith("DELETE FROM perfume_notes"), any(SqlParameterSource.class));
+    }
+
+    // Perfumes ya en BD por "marca|nombre": los devuelve la consulta de claves
+    private void existing(Map<String, Integer> ids) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(2);
+            for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+                String[] key = entry.getKey().split("\\|");
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString("brand")).thenReturn(key[0]);
+                when(rs.getString("name")).thenReturn(key[1]);
+                when(rs.getInt("id")).thenReturn(entry.getValue());
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbc).query(startsWith("SELECT id, brand, name"), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
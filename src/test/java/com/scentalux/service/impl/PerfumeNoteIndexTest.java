@@ -0,0 +1,73 @@
+package com.scentalux.service.impl;
+
+import com.scentalux.event.PerfumeChangedEvent;
+import com.scentalux.model.Perfume;
+import com.scentalux.repo.PerfumeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PerfumeNoteIndexTest {
+
+    private PerfumeNoteIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PerfumeNoteIndex(null);
+        index.index(perfume(1, "Vainilla", "Oud"));
+        index.index(perfume(2, "Vainilla", "Rosa"));
+        index.index(perfume(3, "Jazmín", "Oud"));
+    }
+
+    @Test
+    void find_CombinesAllAndAnyNewestFirst() {
+        assertEquals(List.of(1), index.find(List.of("vainilla", "OUD"), List.of(), 0, 10).ids());
+        assertEquals(List.of(3, 2), index.find(List.of(), List.of("rosa", "jazmin"), 0, 10).ids());
+        assertEquals(List.of(2), index.find(List.of("vainilla"), List.of("rosa", "jazmin"), 0, 10).ids());
+        assertTrue(index.find(List.of("vainilla", "cuero"), List.of(), 0, 10).ids().isEmpty());
+    }
+
+    @Test
+    void index_ReplacesNotesAndPaginates() {
+        index.index(perfume(1, "Cuero"));
+
+        PerfumeNoteIndex.Result vanilla = index.find(List.of("vainilla"), List.of(), 0, 10);
+        PerfumeNoteIndex.Result oudSecondPage = index.find(List.of("oud"), List.of(), 1, 1);
+
+        assertEquals(List.of(2), vanilla.ids());
+        assertEquals(List.of(), oudSecondPage.ids());
+        assertEquals(1, oudSecondPage.total());
+    }
+
+    @Test
+    void refresh_PicksUpNotesChangedByAnotherInstanceUnlessAnEventArrived() {
+        PerfumeRepository repo = mock(PerfumeRepository.class);
+        PerfumeNoteIndex fromDb = new PerfumeNoteIndex(repo);
+        when(repo.findAllWithNotesBy()).thenReturn(List.of(perfume(1, "Vainilla")));
+        fromDb.rebuild();
+
+        when(repo.findAllWithNotesBy()).thenReturn(List.of(perfume(1, "Cuero")));
+        fromDb.refresh();
+        assertEquals(List.of(1), fromDb.find(List.of("cuero"), List.of(), 0, 10).ids());
+
+        // Un evento durante la lectura: el refresco no pisa el cambio local
+        when(repo.findAllWithNotesBy()).thenAnswer(invocation -> {
+            fromDb.onPerfumeChanged(new PerfumeChangedEvent(List.of(1), PerfumeChangedEvent.Type.DELETED));
+            return List.of(perfume(1, "Rosa"));
+        });
+        fromDb.refresh();
+        assertTrue(fromDb.find(List.of(), List.of("rosa", "cuero"), 0, 10).ids().isEmpty());
+    }
+
+    private static Perfume perfume(int id, String... notes) {
+        Perfume perfume = new Perfume();
+        perfume.setId(id);
+        perfume.setNotes(List.of(notes));
+        perfume.setPublished(true);
+        return perfume;
+    }
+}
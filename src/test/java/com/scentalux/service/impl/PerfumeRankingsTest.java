@@ -0,0 +1,121 @@
+package com.scentalux.service.impl;
+
+import com.scentalux.dto.CreateOrderDTO;
+import com.scentalux.dto.OrderItemDTO;
+import com.scentalux.model.Perfume;
+import com.scentalux.model.PerfumeSales;
+import com.scentalux.model.User;
+import com.scentalux.repo.IPerfumeSalesRepo;
+import com.scentalux.repo.IUserRepo;
+import com.scentalux.repo.PerfumeRepository;
+import com.scentalux.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ventas del ranking contra H2: se acumulan al confirmar el pedido y llegan a
+ * perfume_sales en el volcado, fuera de la transacción del pedido.
+ */
+@SpringBootTest(properties = {
+        // El volcado se lanza a mano en cada prueba
+        "scentalux.rankings.sales-flush-interval-ms=3600000"
+})
+@ActiveProfiles("h2")
+class PerfumeRankingsTest {
+
+    private static final String USERNAME = "ranking@test.com";
+
+    @Autowired
+    private PerfumeRankings rankings;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private IPerfumeSalesRepo salesRepo;
+
+    @Autowired
+    private PerfumeRepository perfumeRepo;
+
+    @Autowired
+    private IUserRepo userRepo;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Integer perfumeId;
+
+    @BeforeEach
+    void setUp() {
+        if (userRepo.findOneByUsername(USERNAME) == null) {
+            User user = new User();
+            user.setUsername(USERNAME);
+            user.setPassword("x");
+            user.setEnabled(true);
+            userRepo.save(user);
+        }
+        Perfume perfume = new Perfume();
+        perfume.setName("Perfume ranking " + System.nanoTime());
+        perfume.setBrand("Marca");
+        perfume.setPrice(100.0);
+        perfume.setCategory("UNISEX");
+        perfume.setStock(50);
+        perfumeId = perfumeRepo.save(perfume).getId();
+    }
+
+    @Test
+    void createOrder_RecordsSaleOnlyWhenFlushed() {
+        orderService.createOrder(cart(3), USERNAME);
+        orderService.createOrder(cart(2), USERNAME);
+
+        // La transacción del pedido no escribe en perfume_sales
+        assertEquals(0, sold());
+
+        rankings.flushSales();
+        assertEquals(5, sold());
+    }
+
+    @Test
+    void recordSale_IgnoresRolledBackTransactions() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            rankings.recordSale(Map.of(perfumeId, 4));
+            status.setRollbackOnly();
+        });
+        tx.executeWithoutResult(status -> rankings.recordSale(Map.of(perfumeId, 1)));
+
+        rankings.flushSales();
+        assertEquals(1, sold());
+    }
+
+    @Test
+    void backfill_CanRunTwiceWithoutDoublingSales() {
+        orderService.createOrder(cart(3), USERNAME);
+        salesRepo.deleteAll();
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.execute(status -> salesRepo.backfill());
+        tx.execute(status -> salesRepo.backfill());
+
+        assertEquals(3, sold());
+    }
+
+    private long sold() {
+        return salesRepo.findById(perfumeId).map(PerfumeSales::getSold).orElse(0L);
+    }
+
+    private CreateOrderDTO cart(int quantity) {
+        List<OrderItemDTO> items = List.of(new OrderItemDTO(perfumeId, quantity));
+        return new CreateOrderDTO(items, "YAPE", "Cliente", "Av. Siempre Viva 123", "Lima", "15001", null);
+    }
+}
@@ -0,0 +1,125 @@
+package com.scentalux.service.impl;
+
+import com.scentalux.event.PerfumeChangedEvent;
+import com.scentalux.model.Perfume;
+import com.scentalux.repo.PerfumeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PerfumeSearchIndexTest {
+
+    private PerfumeSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PerfumeSearchIndex(null);
+        index.index(perfume(1, "Sauvage", "Dior", "Fragancia fresca para Él", List.of("Bergamota", "Pimienta")));
+        index.index(perfume(2, "Good Girl", "Carolina Herrera", "Fragancia dulce", List.of("Jazmín", "Cacao")));
+        index.index(perfume(3, "Bleu", "Chanel", "Amaderada", List.of("Jazmín", "Sándalo")));
+    }
+
+    @Test
+    void search_FoldsAccentsAndCase() {
+        assertEquals(List.of(1), index.search("el", 0, 10).ids());
+        assertEquals(List.of(3), index.search("SANDALO", 0, 10).ids());
+    }
+
+    @Test
+    void search_RequiresAllTermsAndTreatsLastAsPrefix() {
+        PerfumeSearchIndex.Result result = index.search("fragancia jaz", 0, 10);
+
+        assertEquals(List.of(2), result.ids());
+        assertEquals(1, result.total());
+    }
+
+    @Test
+    void search_RanksNameAboveDescriptionAndPaginates() {
+        index.index(perfume(4, "Fragancia Nocturna", "Dior", "Intensa", List.of()));
+
+        PerfumeSearchIndex.Result first = index.search("fragancia", 0, 1);
+        PerfumeSearchIndex.Result rest = index.search("fragancia", 1, 2);
+
+        assertEquals(List.of(4), first.ids());
+        assertEquals(3, first.total());
+        // Empate de peso entre 1 y 2: se ordena por id
+        assertEquals(List.of(4, 1, 2), index.search("fragancia", 0, 3).ids());
+        assertEquals(List.of(2), rest.ids());
+    }
+
+    @Test
+    void index_ReplacesPreviousTermsAndDropsUnpublished() {
+        index.index(perfume(1, "Sauvage Elixir", "Dior", null, List.of()));
+        assertTrue(index.search("bergamota", 0, 10).ids().isEmpty());
+        assertEquals(List.of(1), index.search("elixir", 0, 10).ids());
+
+        Perfume hidden = perfume(3, "Bleu", "Chanel", null, List.of());
+        hidden.setPublished(false);
+        index.index(hidden);
+
+        assertTrue(index.search("bleu", 0, 10).ids().isEmpty());
+    }
+
+    @Test
+    void indexBatch_MergesLikeOneByOne() {
+        Perfume hidden = perfume(3, "Bleu", "Chanel", null, List.of());
+        hidden.setPublished(false);
+        index.index(List.of(
+                perfume(1, "Sauvage Elixir", "Dior", null, List.of()),
+                hidden,
+                perfume(5, "Fragancia Solar", "Dior", null, List.of()),
+                perfume(4, "Fragancia Nocturna", "Dior", null, List.of())));
+
+        assertTrue(index.search("bergamota", 0, 10).ids().isEmpty());
+        assertTrue(index.search("bleu", 0, 10).ids().isEmpty());
+        assertEquals(List.of(1), index.search("elixir", 0, 10).ids());
+        assertEquals(List.of(2, 4, 5), index.search("fragancia", 0, 10).ids().stream().sorted().toList());
+        assertEquals(List.of(1, 4, 5), index.search("dior", 0, 10).ids().stream().sorted().toList());
+    }
+
+    @Test
+    void refresh_ReindexesChangesMadeByAnotherInstance() {
+        PerfumeRepository repo = mock(PerfumeRepository.class);
+        PerfumeSearchIndex fromDb = new PerfumeSearchIndex(repo);
+        when(repo.findAllWithNotesBy()).thenReturn(List.of(perfume(1, "Sauvage", "Dior", null, List.of())));
+        fromDb.rebuild();
+
+        when(repo.findAllWithNotesBy()).thenReturn(List.of(perfume(1, "Sauvage", "Dior", null, List.of()),
+                perfume(2, "Bleu", "Chanel", null, List.of())));
+        fromDb.refresh();
+
+        assertEquals(List.of(2), fromDb.search("bleu", 0, 10).ids());
+    }
+
+    @Test
+    void refresh_DoesNotOverwriteALocalChangeReceivedDuringTheLoad() {
+        PerfumeRepository repo = mock(PerfumeRepository.class);
+        PerfumeSearchIndex fromDb = new PerfumeSearchIndex(repo);
+        when(repo.findAllWithNotesBy()).thenReturn(List.of(perfume(1, "Sauvage", "Dior", null, List.of())));
+        fromDb.rebuild();
+
+        // Lectura anterior al borrado local del perfume 1
+        when(repo.findAllWithNotesBy()).thenAnswer(invocation -> {
+            fromDb.onPerfumeChanged(new PerfumeChangedEvent(List.of(1), PerfumeChangedEvent.Type.DELETED));
+            return List.of(perfume(1, "Sauvage", "Dior", null, List.of()), perfume(2, "Bleu", "Chanel", null, List.of()));
+        });
+        fromDb.refresh();
+
+        assertTrue(fromDb.search("sauvage", 0, 10).ids().isEmpty());
+    }
+
+    private static Perfume perfume(int id, String name, String brand, String description, List<String> notes) {
+        Perfume perfume = new Perfume();
+        perfume.setId(id);
+        perfume.setName(name);
+        perfume.setBrand(brand);
+        perfume.setDescription(description);
+        perfume.setNotes(notes);
+        perfume.setPublished(true);
+        return perfume;
+    }
+}
@@ -0,0 +1,61 @@
+package com.scentalux.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeOrderNumberGeneratorTest {
+
+    @Test
+    void nextId_IsUniqueAndMonotonicAcrossThreads() throws Exception {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(7);
+        int threads = 8;
+        int idsPerThread = 50_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                start.await();
+                long previous = Long.MIN_VALUE;
+                for (int i = 0; i < idsPerThread; i++) {
+                    long id = generator.nextId();
+                    assertTrue(id > previous, "IDs must increase within a thread");
+                    previous = id;
+                    ids.add(id);
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(threads * idsPerThread, ids.size());
+    }
+
+    @Test
+    void nextOrderNumber_DiffersBetweenNodes() {
+        SnowflakeOrderNumberGenerator node1 = new SnowflakeOrderNumberGenerator(1);
+        SnowflakeOrderNumberGenerator node2 = new SnowflakeOrderNumberGenerator(2);
+
+        String a = node1.nextOrderNumber();
+        String b = node2.nextOrderNumber();
+
+        assertTrue(a.startsWith("ORD"));
+        assertNotEquals(a, b);
+    }
+
+    @Test
+    void constructor_RejectsOutOfRangeNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeOrderNumberGenerator(1024));
+    }
+}
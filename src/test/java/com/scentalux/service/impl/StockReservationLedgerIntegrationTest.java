@@ -0,0 +1,100 @@
+package com.scentalux.service.impl;
+
+import com.scentalux.dto.CreateOrderDTO;
+import com.scentalux.dto.OrderItemDTO;
+import com.scentalux.model.Perfume;
+import com.scentalux.model.User;
+import com.scentalux.repo.IUserRepo;
+import com.scentalux.repo.PerfumeRepository;
+import com.scentalux.service.OrderService;
+import com.scentalux.service.PerfumeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ledger activo contra H2: los descuentos manuales de stock pasan por el ledger
+ * y cuentan con los items de pedidos aún no aplicados en BD.
+ */
+@SpringBootTest(properties = {
+        "scentalux.stock.ledger.enabled=true",
+        // El flush se lanza a mano en cada prueba
+        "scentalux.stock.ledger.flush-interval-ms=3600000"
+})
+@ActiveProfiles("h2")
+class StockReservationLedgerIntegrationTest {
+
+    private static final String USERNAME = "ledger@test.com";
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PerfumeService perfumeService;
+
+    @Autowired
+    private StockReservationLedger ledger;
+
+    @Autowired
+    private PerfumeRepository perfumeRepo;
+
+    @Autowired
+    private IUserRepo userRepo;
+
+    private Integer perfumeId;
+
+    @BeforeEach
+    void setUp() {
+        if (userRepo.findOneByUsername(USERNAME) == null) {
+            User user = new User();
+            user.setUsername(USERNAME);
+            user.setPassword("x");
+            user.setEnabled(true);
+            userRepo.save(user);
+        }
+        Perfume perfume = new Perfume();
+        perfume.setName("Perfume ledger " + System.nanoTime());
+        perfume.setBrand("Marca");
+        perfume.setPrice(100.0);
+        perfume.setCategory("UNISEX");
+        perfume.setStock(10);
+        perfumeId = perfumeRepo.save(perfume).getId();
+    }
+
+    @Test
+    void decrementStock_CountsItemsPendingFlush() {
+        orderService.createOrder(cart(8), USERNAME);
+
+        // En BD siguen las 10 unidades, pero 8 ya están reservadas
+        assertEquals(0, perfumeService.decrementStock(perfumeId, 5));
+        assertEquals(1, perfumeService.decrementStock(perfumeId, 2));
+
+        ledger.flush();
+
+        assertEquals(0, perfumeRepo.findById(perfumeId).orElseThrow().getStock());
+        assertEquals(0, ledger.available(perfumeId));
+    }
+
+    @Test
+    void update_ReloadsCounterAfterCommit() {
+        orderService.createOrder(cart(4), USERNAME);
+
+        Perfume perfume = perfumeService.findById(perfumeId);
+        perfume.setStock(20);
+        perfumeService.update(perfume, perfumeId);
+
+        // 20 en BD menos los 4 items aún pendientes
+        assertEquals(16, ledger.available(perfumeId));
+    }
+
+    private CreateOrderDTO cart(int quantity) {
+        List<OrderItemDTO> items = List.of(new OrderItemDTO(perfumeId, quantity));
+        return new CreateOrderDTO(items, "YAPE", "Cliente", "Av. Siempre Viva 123", "Lima", "15001", null);
+    }
+}
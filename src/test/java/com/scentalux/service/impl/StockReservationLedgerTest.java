@@ -0,0 +1,163 @@
+package com.scentalux.service.impl;
+
+import com.scentalux.repo.IOrderItemRepo;
+import com.scentalux.repo.PerfumeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class StockReservationLedgerTest {
+
+    @Mock
+    private PerfumeRepository perfumeRepo;
+
+    @Mock
+    private IOrderItemRepo orderItemRepo;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private StockReservationLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(perfumeRepo.findAvailableStock(1)).thenReturn(100L);
+        when(perfumeRepo.findAvailableStock(2)).thenReturn(5L);
+    }
+
+    @Test
+    void tryReserve_NeverOversellsUnderContention() throws Exception {
+        int threads = 32;
+        int attemptsPerThread = 50;
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    if (ledger.tryReserve(Map.of(1, 1)).isEmpty()) {
+                        granted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        // 1600 intentos sobre 100 unidades: exactamente 100 reservas
+        assertEquals(100, granted.get());
+        assertEquals(0, ledger.available(1));
+    }
+
+    @Test
+    void tryReserve_IsAllOrNothing() {
+        Map<Integer, Integer> cart = new LinkedHashMap<>();
+        cart.put(1, 10);
+        cart.put(2, 6);
+
+        Optional<Integer> rejected = ledger.tryReserve(cart);
+
+        assertEquals(Optional.of(2), rejected);
+        assertEquals(100, ledger.available(1));
+        assertEquals(5, ledger.available(2));
+    }
+
+    @Test
+    void rollback_ReturnsUnitsToCounter() {
+        inTransaction(() -> assertTrue(ledger.tryReserve(Map.of(2, 5)).isEmpty()),
+                TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(5, ledger.available(2));
+    }
+
+    @Test
+    void reload_SubtractsReservationsStillInFlight() {
+        inTransaction(() -> {
+            assertTrue(ledger.tryReserve(Map.of(2, 3)).isEmpty());
+            // Otro hilo descarta el contador antes del commit, cuando la BD aún no ve los items
+            evictFromOtherThread(2);
+            assertEquals(2, ledger.available(2));
+            assertTrue(ledger.tryReserve(Map.of(2, 3)).isPresent());
+        }, TransactionSynchronization.STATUS_COMMITTED);
+
+        // Tras el commit la BD ya cuenta los 3 items pendientes
+        when(perfumeRepo.findAvailableStock(2)).thenReturn(2L);
+        ledger.evict(2);
+        assertEquals(2, ledger.available(2));
+    }
+
+    @Test
+    void rollback_AfterReloadDoesNotOversell() {
+        inTransaction(() -> {
+            assertTrue(ledger.tryReserve(Map.of(2, 5)).isEmpty());
+            evictFromOtherThread(2);
+            assertEquals(0, ledger.available(2));
+        }, TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // El contador recargado había restado la reserva en vuelo: recupera exactamente esas 5
+        assertEquals(5, ledger.available(2));
+    }
+
+    @Test
+    void evict_InsideTransactionWaitsForCommit() {
+        assertEquals(5, ledger.available(2));
+        when(perfumeRepo.findAvailableStock(2)).thenReturn(1L);
+
+        inTransaction(() -> {
+            ledger.evict(2);
+            // Antes del commit se sigue usando el contador anterior
+            assertEquals(5, ledger.available(2));
+        }, TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(1, ledger.available(2));
+    }
+
+    // Sin transacción en ese hilo, el descarte es inmediato
+    private void evictFromOtherThread(Integer perfumeId) {
+        CompletableFuture.runAsync(() -> ledger.evict(perfumeId)).join();
+    }
+
+    // Simula una transacción: ejecuta el cuerpo y avisa a las sincronizaciones con el estado final
+    private static void inTransaction(Runnable body, int status) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            body.run();
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronizations.forEach(TransactionSynchronization::afterCommit);
+            }
+            synchronizations.forEach(sync -> sync.afterCompletion(status));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.scentalux.util;
+
+import com.scentalux.exception.OrderValidationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderCursorTest {
+
+    @Test
+    void encode_RoundTrips() {
+        OrderCursor cursor = new OrderCursor(LocalDateTime.of(2025, 3, 1, 10, 15, 30, 123_000_000), 42);
+
+        OrderCursor decoded = OrderCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    void encode_IsUrlSafe() {
+        String token = new OrderCursor(LocalDateTime.of(2025, 12, 31, 23, 59, 59), Integer.MAX_VALUE).encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+    }
+
+    @Test
+    void decode_BlankMeansFirstPage() {
+        assertNull(OrderCursor.decode(null));
+        assertNull(OrderCursor.decode(" "));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"not base64!", "2025-03-01T10:15:30|42"})
+    void decode_RejectsTokensThatAreNotBase64(String token) {
+        assertThrows(OrderValidationException.class, () -> OrderCursor.decode(token));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "2025-03-01T10:15:30",          // sin separador
+            "2025-03-01T10:15:30|",         // id vacío
+            "2025-03-01T10:15:30|4x2",      // id no numérico
+            "2025-13-01T10:15:30|42",       // fecha imposible
+            "|42"                           // fecha vacía
+    })
+    void decode_RejectsMalformedContent(String raw) {
+        String token = encode(raw);
+
+        assertThrows(OrderValidationException.class, () -> OrderCursor.decode(token));
+    }
+
+    @Test
+    void decode_RejectsTamperedCursor() {
+        String token = new OrderCursor(LocalDateTime.of(2025, 3, 1, 10, 15, 30), 42).encode();
+        // Un carácter cambiado rompe la fecha o el id codificados
+        String tampered = "A" + token.substring(1);
+
+        assertThrows(OrderValidationException.class, () -> OrderCursor.decode(tampered));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}